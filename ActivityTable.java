@@ -0,0 +1,148 @@
+import java.util.Arrays;
+
+/**
+ * What the current time of day and weather mean for each species:
+ * whether it is active, which for animals means moving and hunting and
+ * for plants means reproducing, and how likely it is to die of
+ * drought. The table is updated whenever the time of day or weather
+ * changes, so that organisms only need to look up their species as
+ * they act.
+ *
+ * The rules are read from each species' definition. Animals only move
+ * in their active weather, and not during a drought. Plants do not
+ * depend on the weather.
+ *
+ * For each species that is neither active nor at risk of drought the
+ * table also gives the step at which that may next change: the first
+ * later time of day at which the species is active in the current
+ * weather, or the next change of weather, whichever comes first. Until
+ * then an organism of the species has nothing to do but age, so it
+ * need not act (see TimingWheel).
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class ActivityTable
+{
+    // All species, by ordinal.
+    private static final Species[] SPECIES = Species.values();
+    // Whether each species, by ordinal, is active at each time of day,
+    // by ordinal.
+    private static final boolean[][] ACTIVE_TIMES = new boolean[Species.values().length][];
+    // Whether each species is active in each type of weather, by ordinal,
+    // or null if the weather makes no difference.
+    private static final boolean[][] ACTIVE_WEATHER = new boolean[Species.values().length][];
+
+    static {
+        for(Species species : Species.values()) {
+            SpeciesDefinition definition = species.getDefinition();
+            int i = species.ordinal();
+            ACTIVE_TIMES[i] = new boolean[TimeOfDay.values().length];
+            for(TimeOfDay time : TimeOfDay.values()) {
+                ACTIVE_TIMES[i][time.ordinal()] = definition.isActiveAt(time);
+            }
+            if(!definition.isActiveInAnyWeather()) {
+                ACTIVE_WEATHER[i] = new boolean[WeatherType.values().length];
+                for(WeatherType type : WeatherType.values()) {
+                    ACTIVE_WEATHER[i][type.ordinal()] = definition.isActiveIn(type);
+                }
+            }
+        }
+    }
+
+    // Whether each species is active, by ordinal.
+    private boolean[] active;
+    // The highest roll out of 100 on which an organism of each species
+    // dies of drought, by ordinal, or -1 if there is no drought.
+    private int[] droughtDeathLimits;
+    // The step at which each inactive species may next become active or
+    // at risk of drought, by ordinal.
+    private int[] wakeSteps;
+
+    /**
+     * Create a table in which no species is active and there is no
+     * drought. It must be updated before it is used.
+     */
+    public ActivityTable()
+    {
+        active = new boolean[Species.values().length];
+        droughtDeathLimits = new int[Species.values().length];
+        Arrays.fill(droughtDeathLimits, -1);
+        wakeSteps = new int[Species.values().length];
+    }
+
+    /**
+     * Work out the activity and drought death limit of every species.
+     * @param time The time of day.
+     * @param weather The weather.
+     * @param step The number of the step from which the time of day and
+     *             weather apply.
+     */
+    public void update(TimeOfDay time, Weather weather, int step)
+    {
+        boolean drought = weather.getIsDrought();
+        int severity = weather.getDroughtSeverity();
+        int type = weather.getType().ordinal();
+        int nextTime = step - step % Time.STEPS_PER_TIME_OF_DAY + Time.STEPS_PER_TIME_OF_DAY;
+        int nextDay = step - step % Time.STEPS_PER_DAY + Time.STEPS_PER_DAY;
+        for(Species species : SPECIES) {
+            int i = species.ordinal();
+            boolean[] activeWeather = ACTIVE_WEATHER[i];
+            active[i] = ACTIVE_TIMES[i][time.ordinal()]
+                && (activeWeather == null || (!drought && activeWeather[type]));
+            droughtDeathLimits[i] = drought
+                ? species.getDefinition().getDroughtDeathLimit(severity) : -1;
+
+            wakeSteps[i] = nextDay;
+            TimeOfDay later = time.next();
+            for(int start = nextTime; start < nextDay; start += Time.STEPS_PER_TIME_OF_DAY) {
+                if(ACTIVE_TIMES[i][later.ordinal()]
+                        && (activeWeather == null || activeWeather[type])) {
+                    wakeSteps[i] = start;
+                    break;
+                }
+                later = later.next();
+            }
+        }
+    }
+
+    /**
+     * @param species A species.
+     * @return true if it is active.
+     */
+    public boolean isActive(Species species)
+    {
+        return active[species.ordinal()];
+    }
+
+    /**
+     * @param species A species.
+     * @return The highest roll out of 100 on which an organism of the
+     *         species dies of drought, or -1 if there is no drought.
+     */
+    public int getDroughtDeathLimit(Species species)
+    {
+        return droughtDeathLimits[species.ordinal()];
+    }
+
+    /**
+     * @param species A species.
+     * @return The probability that an organism of the species dies of
+     *         drought on this step: that of a roll out of 100 being at
+     *         most its drought death limit. Zero if there is no drought.
+     */
+    public double getDroughtDeathProbability(Species species)
+    {
+        return (droughtDeathLimits[species.ordinal()] + 1) / 100.0;
+    }
+
+    /**
+     * @param species A species that is neither active nor at risk of
+     *                drought.
+     * @return The first later step at which the species may become
+     *         active or at risk of drought.
+     */
+    public int getWakeStep(Species species)
+    {
+        return wakeSteps[species.ordinal()];
+    }
+}
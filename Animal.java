@@ -1,25 +1,318 @@
-import java.util.Random;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
- * A class representing shared characteristics of animals.
+ * An animal of any species. How an animal lives is the same for every
+ * species; what differs, such as how long it lives, what it eats and
+ * when it moves, is read from the species' definition (see
+ * SpeciesDefinition). Every animal is therefore run by this one class.
  *
- * @author Nikita Lyakhovoy
+ * On each step an animal ages and grows hungrier, breeds if a mate of
+ * the other gender is next to it, and, while its species is active,
+ * eats adjacent food or moves to a free adjacent cell. It dies of old
+ * age, hunger, or overcrowding if it is active and cannot move. Whether
+ * an animal that has not died of old age or hunger dies of drought is
+ * decided before it acts, for all the animals of a tile at once (see
+ * DroughtSampler).
+ *
+ * An animal whose species is inactive, outside a drought, only ages
+ * and grows hungrier until its species may become active, or it dies,
+ * or, if a mate is next to it, it is old enough to breed. It therefore
+ * sets its wake step to the first of those steps and is not stepped
+ * before then (see TimingWheel).
+ *
+ * An animal does not count its age and hunger step by step. It records
+ * the step at which it was born and the step at which it last ate, and
+ * its age and food level are worked out from those when needed, so
+ * nothing changes on the steps it sleeps through. The steps at which
+ * it would die of old age and of hunger follow from them as deadlines.
+ *
+ * @author David J. Barnes, Michael Kölling and Nikita Lyakhovoy
  */
-public abstract class Animal extends Organism
+public final class Animal extends Organism
 {
+    // The code of the plant species.
+    private static final byte PLANT = Species.PLANT.getCode();
 
-    private Boolean gender;
-
-    private static final Random rand = Randomizer.getRandom();
+    // The definition of the animal's species.
+    private final SpeciesDefinition definition;
+    // The step at which the animal was born. Its age is the number of
+    // steps since.
+    private int birthStep;
+    // The step at which the animal last ate. Its food level is its food
+    // value less the number of steps since.
+    private int lastFedStep;
+    //Gender: False is Male, True is Female
+    private boolean gender;
 
-    public  Animal(Field field, Location location){
-        super(field,location);
+    /**
+     * Create an animal. An animal can be created as a new born (age
+     * zero and not hungry) or with a random age and food level. It is
+     * taken to be created in step 0.
+     *
+     * @param species The animal's species.
+     * @param randomAge If true, the animal will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param location The location within the field.
+     */
+    public Animal(Species species, boolean randomAge, Field field, Location location)
+    {
+        this(species, randomAge, field, field.cellOf(location), new Parameters(), 0);
+    }
 
+    /**
+     * Create an animal in the given cell of the field.
+     *
+     * @param species The animal's species.
+     * @param randomAge If true, the animal will have random age and hunger level.
+     * @param field The field currently occupied.
+     * @param cell The cell within the field.
+     * @param parameters The parameters of the simulation.
+     * @param step The number of the step in which it is created.
+     */
+    public Animal(Species species, boolean randomAge, Field field, int cell,
+                  Parameters parameters, int step)
+    {
+        super(species, field, parameters);
+        definition = species.getDefinition();
+        RandomStream rand = Randomizer.getRandom();
         gender = rand.nextBoolean();
+        // Place it now it has a gender, as the field counts neighbours by gender.
+        setCell(cell);
+        if(randomAge) {
+            birthStep = step - rand.nextInt(definition.getMaxAge());
+            lastFedStep = step - getFoodValue() + rand.nextInt(getFoodValue());
+        }
+        else {
+            birthStep = step;
+            lastFedStep = step;
+        }
+    }
 
+    /**
+     * Create an animal from its state in a snapshot, and place it in
+     * the given cell of the field.
+     *
+     * @param species The animal's species.
+     * @param field The field currently occupied.
+     * @param cell The cell within the field.
+     * @param parameters The parameters of the simulation.
+     * @param buffer Holds the state written by writeState.
+     */
+    Animal(Species species, Field field, int cell, Parameters parameters, ByteBuffer buffer)
+    {
+        super(species, field, parameters);
+        definition = species.getDefinition();
+        readState(buffer);
+        setCell(cell);
     }
 
-    protected Boolean getGender() {
+    /**
+     * This is what the animal does most of the time: it hunts for
+     * food. In the process, it might breed, die of hunger or
+     * overcrowding, or die of old age.
+     * @param newAnimals A list to return newly born animals.
+     * @param step The number of the step.
+     * @param activity What the current time of day and weather mean for each species.
+     */
+    public void act(List<Organism> newAnimals, int step, ActivityTable activity)
+    {
+        if(hasReachedDeadline(step)) {
+            // Old age or hunger.
+            setDead();
+        }
+
+        if(isAlive()) {
+            boolean mated = giveBirth(newAnimals, step);
+
+            //the conditions in what weather and at what time of day the animal moves around
+            //are specified in the ActivityTable
+            if(activity.isActive(getSpecies())) {
+                // Move towards a source of food if found.
+                int newCell = findFood(step);
+                if(newCell < 0) {
+                    // No food found - try to move to a free location.
+                    newCell = getField().freeAdjacentCell(getCell(), getNeighbours());
+                }
+                // See if it was possible to move.
+                if(newCell >= 0) {
+                    setCell(newCell);
+                }
+                else {
+                    // Overcrowding.
+                    setDead();
+                }
+            }
+            else if(activity.getDroughtDeathLimit(getSpecies()) < 0) {
+                setWakeStep(nextWakeStep(step, mated, activity));
+            }
+        }
+    }
+
+    /**
+     * Work out when this animal, which is inactive and not at risk of
+     * drought, next has more to do than age: when its species may next
+     * be active or at risk, when it dies of hunger or old age, or, if
+     * a mate is next to it, when it is old enough to breed. Mates only
+     * move while active, but one may be born next to it meanwhile,
+     * which wakes it early (see TiledStepper).
+     * @param step The number of the current step.
+     * @param mated Whether a mate is next to it.
+     * @param activity What the current time of day and weather mean for each species.
+     * @return The step at which it next has to act.
+     */
+    private int nextWakeStep(int step, boolean mated, ActivityTable activity)
+    {
+        int wake = Math.min(activity.getWakeStep(getSpecies()), getDeadline());
+        if(mated) {
+            wake = Math.min(wake, Math.max(step + 1, birthStep + definition.getBreedingAge()));
+        }
+        return wake;
+    }
+
+    /**
+     * Check whether the animal dies of old age or hunger at the given step.
+     * @param step The number of the step.
+     * @return true if the step is at or after its deadline.
+     */
+    boolean hasReachedDeadline(int step)
+    {
+        return step >= getDeadline();
+    }
+
+    /**
+     * Return the step at which the animal dies of old age or hunger:
+     * the first at which its age is over its species' maximum, or its
+     * food level down to zero, unless it eats before then.
+     * @return The deadline.
+     */
+    private int getDeadline()
+    {
+        return Math.min(birthStep + definition.getMaxAge() + 1, lastFedStep + getFoodValue());
+    }
+
+    /**
+     * Look for food adjacent to the current location.
+     * Only the first live organism the species eats is eaten.
+     * @param step The number of the step.
+     * @return The cell where food was found, or -1 if it wasn't.
+     */
+    int findFood(int step)
+    {
+        Field field = getField();
+        int diet = definition.getDiet();
+        if(field.countAdjacent(getCell(), diet) == 0) {
+            return -1;
+        }
+        Neighbourhood adjacent = getNeighbours();
+        field.adjacentCells(getCell(), adjacent);
+        for(int i = 0; i < adjacent.size(); i++) {
+            int where = adjacent.get(i);
+            byte code = field.getSpeciesAt(where);
+            if((diet >>> code & 1) != 0) {
+                if(code == PLANT) {
+                    // Plants are kept in the field's GrassLayer, not as objects.
+                    field.removePlant(where);
+                    lastFedStep = step;
+                    return where;
+                }
+                Organism prey = (Organism) field.getObjectAt(where);
+                if(prey.isAlive()) {
+                    prey.setDead();
+                    lastFedStep = step;
+                    return where;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether or not this animal is to give birth at this step.
+     * It can if a mate of the other gender is next to it, which the
+     * field's neighbour counts tell. New births will be made into free
+     * adjacent locations.
+     * @param newAnimals A list to return newly born animals.
+     * @param step The number of the step.
+     * @return true if a mate is next to it, whether or not it bred.
+     */
+    private boolean giveBirth(List<Organism> newAnimals, int step)
+    {
+        Field field = getField();
+        if(field.countAdjacent(getCell(), getSpecies().getCode(), !gender) == 0) {
+            return false;
+        }
+
+        int births = breed(step);
+        if(births > 0) {
+            // New animals are born into adjacent locations.
+            // Get a list of adjacent free locations.
+            Neighbourhood free = getNeighbours();
+            field.freeAdjacentCells(getCell(), free);
+            for(int b = 0; b < births && b < free.size(); b++) {
+                Animal young = new Animal(getSpecies(), false, field, free.get(b),
+                                           getParameters(), step);
+                newAnimals.add(young);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generate a number representing the number of births,
+     * if it can breed.
+     * @param step The number of the step.
+     * @return The number of births (may be zero).
+     */
+    private int breed(int step)
+    {
+        RandomStream rand = Randomizer.getRandom();
+        int births = 0;
+        if(canBreed(step) && rand.nextDouble() <= getBreedingProbability()) {
+            births = rand.nextInt(definition.getMaxLitterSize()) + 1;
+        }
+        return births;
+    }
+
+    /**
+     * An animal can breed if it has reached the breeding age.
+     * @param step The number of the step.
+     */
+    private boolean canBreed(int step)
+    {
+        return step - birthStep >= definition.getBreedingAge();
+    }
+
+    /**
+     * @return The animal's gender: false is male, true is female.
+     */
+    protected boolean getGender()
+    {
         return gender;
     }
+
+    /**
+     * Write the animal's state for a snapshot.
+     * @param buffer Receives the state.
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        super.writeState(buffer);
+        buffer.put((byte) (gender ? 1 : 0));
+        buffer.putInt(birthStep);
+        buffer.putInt(lastFedStep);
+    }
+
+    /**
+     * Read the animal's state from a snapshot. It is read before the
+     * animal is placed, as the field counts animals by gender.
+     * @param buffer Holds the state written by writeState.
+     */
+    void readState(ByteBuffer buffer)
+    {
+        super.readState(buffer);
+        gender = buffer.get() != 0;
+        birthStep = buffer.getInt();
+        lastFedStep = buffer.getInt();
+    }
 }
@@ -0,0 +1,528 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An alternative way of running the simulation, in which organisms
+ * are not objects. The age, food level, gender, cell and id of every
+ * organism are kept in parallel primitive arrays, one set per species,
+ * and each step processes the species one after another in a tight
+ * loop. The rules are the same as in Animal and GrassLayer and are read
+ * from the species definitions, the simulation's Parameters and the
+ * ActivityTable of each step.
+ *
+ * The engine records species codes in a Field, so the field's
+ * neighbourhood queries can be reused, but places no objects in it.
+ * Plants are kept in the simulation's GrassLayer, as when organisms
+ * are objects, and are swept chunk by chunk once the animals have
+ * acted. Animals stand on plants without harming them.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class ArrayEngine
+{
+    // The number of organisms each species has room for at first.
+    private static final int INITIAL_CAPACITY = 64;
+    // A population is compacted once more than this share of its
+    // entries belong to dead organisms.
+    private static final double MAX_DEAD_SHARE = 0.25;
+    // The code of the plant species.
+    private static final byte PLANT = Species.PLANT.getCode();
+    // The animal species, by ordinal.
+    private static final Species[] ANIMALS = animals();
+    // The key of the drought sampler's random stream, apart from the
+    // organisms' ids.
+    private static final long DROUGHT_KEY = Long.MIN_VALUE;
+    // The field holding the species code of each cell.
+    private Field field;
+    // The plants of the field.
+    private GrassLayer grass;
+    // The index of each cell's organism within its species' arrays.
+    private int[] slots;
+    // The organisms of each species, indexed by species code.
+    private Population[] populations;
+    // The source of each organism's random stream.
+    private Randomizer randomizer;
+    // The rules of each species, indexed by species code.
+    private Rules[] speciesRules;
+    // The size of each population at the start of the current step.
+    private int[] sizes;
+    // The number of organisms of each species born in the last step, by code.
+    private int[] born;
+    // A buffer for neighbourhood queries.
+    private Neighbourhood neighbours;
+    // Picks the organisms that die of drought, in the order they act.
+    private DroughtSampler drought;
+
+    /**
+     * Create an engine for the given field. The field is cleared.
+     * @param field The field to record species codes in.
+     * @param grass The plants of the field.
+     * @param randomizer The source of each organism's random stream.
+     * @param parameters The parameters of the simulation.
+     */
+    public ArrayEngine(Field field, GrassLayer grass, Randomizer randomizer, Parameters parameters)
+    {
+        this.field = field;
+        this.grass = grass;
+        this.randomizer = randomizer;
+        speciesRules = createRules(parameters);
+        slots = new int[field.getCellCapacity()];
+        populations = new Population[speciesRules.length];
+        sizes = new int[speciesRules.length];
+        born = new int[speciesRules.length];
+        for(Species species : ANIMALS) {
+            populations[species.getCode()] = new Population();
+        }
+        neighbours = new Neighbourhood();
+        drought = new DroughtSampler();
+        clear();
+    }
+
+    /**
+     * Remove every organism, and every plant.
+     */
+    public void clear()
+    {
+        field.clear();
+        for(Species species : ANIMALS) {
+            populations[species.getCode()].size = 0;
+            populations[species.getCode()].dead = 0;
+        }
+    }
+
+    /**
+     * Add a new animal, drawing its random characteristics from the
+     * current random stream in the same way as Animal. Plants are
+     * added to the GrassLayer instead.
+     * @param species The species of the animal.
+     * @param cell The cell to place it in. Must be free.
+     * @param randomAge If true, the animal is given a random age and
+     *                  food level, otherwise it is a newborn.
+     * @throws IllegalArgumentException If the species is not an animal.
+     */
+    public void add(Species species, int cell, boolean randomAge)
+    {
+        if(!species.getDefinition().isAnimal()) {
+            throw new IllegalArgumentException(species + " is not an animal.");
+        }
+        byte code = species.getCode();
+        Rules rules = speciesRules[code];
+        RandomStream rand = Randomizer.getRandom();
+
+        Population population = populations[code];
+        int slot = population.add();
+        population.id[slot] = rand.nextLong();
+        population.cell[slot] = cell;
+        population.female[slot] = rand.nextBoolean();
+        if(randomAge) {
+            population.age[slot] = rand.nextInt(rules.maxAge);
+            population.food[slot] = rand.nextInt(rules.foodValue);
+        }
+        else {
+            population.age[slot] = 0;
+            population.food[slot] = rules.foodValue;
+        }
+        field.placeSpecies(code, population.female[slot], cell);
+        slots[cell] = slot;
+    }
+
+    /**
+     * Write every animal for a snapshot, species by species. The
+     * plants are written by the GrassLayer.
+     * @param snapshot Receives the animals.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    void writeState(Snapshot snapshot) throws IOException
+    {
+        for(Species species : ANIMALS) {
+            Population population = populations[species.getCode()];
+            snapshot.reserve(4).putInt(population.size - population.dead);
+            for(int slot = 0; slot < population.size; slot++) {
+                if(population.cell[slot] >= 0) {
+                    snapshot.reserve(Snapshot.RECORD_SIZE)
+                        .putInt(population.cell[slot])
+                        .putInt(population.age[slot])
+                        .putInt(population.food[slot])
+                        .put((byte) (population.female[slot] ? 1 : 0))
+                        .putLong(population.id[slot]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace every organism with the animals read from a snapshot.
+     * The field is left without plants.
+     * @param buffer Holds the animals written by writeState.
+     */
+    void readState(ByteBuffer buffer)
+    {
+        clear();
+        for(Species species : ANIMALS) {
+            byte code = species.getCode();
+            Population population = populations[code];
+            int count = buffer.getInt();
+            for(int i = 0; i < count; i++) {
+                int cell = buffer.getInt();
+                if(!field.contains(cell) || field.getSpeciesAt(cell) != Species.EMPTY) {
+                    throw new IllegalArgumentException("Invalid cell: " + cell);
+                }
+                int slot = population.add();
+                population.cell[slot] = cell;
+                population.age[slot] = buffer.getInt();
+                population.food[slot] = buffer.getInt();
+                population.female[slot] = buffer.get() != 0;
+                population.id[slot] = buffer.getLong();
+                field.placeSpecies(code, population.female[slot], cell);
+                slots[cell] = slot;
+            }
+        }
+    }
+
+    /**
+     * Let every organism act once: the animals, then the plants.
+     * Organisms born during the step do not act until the next one:
+     * animals are appended to their species' arrays, past the size the
+     * step started with.
+     *
+     * An organism that dies only has its entry marked, and the entries
+     * of the dead are skipped until there are enough of them to be
+     * worth closing up (see compact), so a step in which many die costs
+     * no more than one in which few do.
+     * @param step The number of the step.
+     * @param activity What the current time of day and weather mean
+     *                 for each species.
+     */
+    public void step(int step, ActivityTable activity)
+    {
+        for(Species species : ANIMALS) {
+            sizes[species.getCode()] = populations[species.getCode()].size;
+        }
+
+        drought.start(randomizer, step, DROUGHT_KEY, activity);
+        for(Species species : ANIMALS) {
+            byte code = species.getCode();
+            Population population = populations[code];
+            boolean active = activity.isActive(species);
+            for(int slot = 0; slot < sizes[code]; slot++) {
+                if(population.cell[slot] >= 0) {
+                    randomizer.reseed(step, population.id[slot]);
+                    actAnimal(code, slot, active);
+                }
+            }
+        }
+        born[PLANT] = stepPlants(step, activity);
+
+        for(Species species : ANIMALS) {
+            byte code = species.getCode();
+            Population population = populations[code];
+            born[code] = population.size - sizes[code];
+            if(population.dead > population.size * MAX_DEAD_SHARE) {
+                compact(population);
+            }
+        }
+    }
+
+    /**
+     * Let the plants act once, a chunk of the field at a time, as
+     * TiledStepper does. Only allocated chunks can hold plants.
+     * @param step The number of the step.
+     * @param activity What the current time of day and weather mean
+     *                 for each species.
+     * @return The number of plants that sprouted.
+     */
+    private int stepPlants(int step, ActivityTable activity)
+    {
+        int columns = field.getChunkColumns();
+        int sprouted = 0;
+        for(int chunk = field.nextChunk(0); chunk >= 0; chunk = field.nextChunk(chunk + 1)) {
+            int top = (chunk / columns) * Field.CHUNK_SIZE;
+            int left = (chunk % columns) * Field.CHUNK_SIZE;
+            sprouted += grass.step(top, left, Math.min(top + Field.CHUNK_SIZE, field.getDepth()),
+                                   Math.min(left + Field.CHUNK_SIZE, field.getWidth()),
+                                   step, activity, neighbours, drought);
+        }
+        return sprouted;
+    }
+
+    /**
+     * Return how many organisms of a species were born in the last step,
+     * including any that died in the same step.
+     * @param species The species.
+     * @return The number of births.
+     */
+    public int getBirths(Species species)
+    {
+        return born[species.getCode()];
+    }
+
+    /**
+     * Return the number of living organisms of a species.
+     * @param species The species to count.
+     * @return The number alive.
+     */
+    public int getCount(Species species)
+    {
+        if(!species.getDefinition().isAnimal()) {
+            return field.getCount(species);
+        }
+        Population population = populations[species.getCode()];
+        return population.size - population.dead;
+    }
+
+    /**
+     * One step of an animal's life, following the rules in Animal.
+     * @param code The animal's species code.
+     * @param slot The animal's index in its species' arrays.
+     * @param active Whether the animal moves around in this step.
+     */
+    private void actAnimal(byte code, int slot, boolean active)
+    {
+        Rules rules = speciesRules[code];
+        Population population = populations[code];
+        population.age[slot]++;
+        population.food[slot]--;
+        if(population.age[slot] > rules.maxAge || population.food[slot] <= 0) {
+            kill(code, slot);
+            return;
+        }
+        if(drought.dies(rules.species)) {
+            kill(code, slot);
+            return;
+        }
+
+        giveBirth(code, slot);
+
+        if(active) {
+            int cell = population.cell[slot];
+            int newCell = findFood(code, slot);
+            if(newCell < 0) {
+                newCell = field.freeAdjacentCell(cell, neighbours);
+            }
+            if(newCell >= 0) {
+                move(code, slot, newCell);
+            }
+            else {
+                // Overcrowding.
+                kill(code, slot);
+            }
+        }
+    }
+
+    /**
+     * Give birth into free adjacent cells if a mate of the opposite
+     * gender is adjacent, as the field's neighbour counts tell.
+     * @param code The animal's species code.
+     * @param slot The animal's index in its species' arrays.
+     */
+    private void giveBirth(byte code, int slot)
+    {
+        Population population = populations[code];
+        int cell = population.cell[slot];
+        if(field.countAdjacent(cell, code, !population.female[slot]) == 0) {
+            return;
+        }
+
+        int births = breed(speciesRules[code], population.age[slot]);
+        if(births > 0) {
+            Neighbourhood free = neighbours;
+            field.freeAdjacentCells(cell, free);
+            for(int b = 0; b < births && b < free.size(); b++) {
+                add(Species.fromCode(code), free.get(b), false);
+            }
+        }
+    }
+
+    /**
+     * Generate a number of births, if the organism is old enough.
+     * @param rules The organism's species rules.
+     * @param age The organism's age.
+     * @return The number of births (may be zero).
+     */
+    private int breed(Rules rules, int age)
+    {
+        RandomStream rand = Randomizer.getRandom();
+        int births = 0;
+        if(age >= rules.breedingAge && rand.nextDouble() <= rules.breedingProbability) {
+            births = rand.nextInt(rules.maxLitterSize) + 1;
+        }
+        return births;
+    }
+
+    /**
+     * Eat the first prey found in an adjacent cell.
+     * @param code The animal's species code.
+     * @param slot The animal's index in its species' arrays.
+     * @return The cell where food was found, or -1 if it wasn't.
+     */
+    private int findFood(byte code, int slot)
+    {
+        Rules rules = speciesRules[code];
+        int cell = populations[code].cell[slot];
+        if(field.countAdjacent(cell, rules.diet) == 0) {
+            return -1;
+        }
+        Neighbourhood adjacent = neighbours;
+        field.adjacentCells(cell, adjacent);
+        for(int i = 0; i < adjacent.size(); i++) {
+            int where = adjacent.get(i);
+            byte prey = field.getSpeciesAt(where);
+            if((rules.diet >>> prey & 1) != 0) {
+                if(prey == PLANT) {
+                    field.removePlant(where);
+                }
+                else {
+                    kill(prey, slots[where]);
+                }
+                populations[code].food[slot] = rules.foodValue;
+                return where;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Move an animal to a free cell. Any plant there stays, under it.
+     * @param code The animal's species code.
+     * @param slot The animal's index in its species' arrays.
+     * @param newCell The cell to move to.
+     */
+    private void move(byte code, int slot, int newCell)
+    {
+        Population population = populations[code];
+        field.clear(population.cell[slot]);
+        population.cell[slot] = newCell;
+        field.placeSpecies(code, population.female[slot], newCell);
+        slots[newCell] = slot;
+    }
+
+    /**
+     * Remove an organism from the field. Its arrays entry is reused
+     * when the population is next compacted.
+     * @param code The organism's species code.
+     * @param slot The organism's index in its species' arrays.
+     */
+    private void kill(byte code, int slot)
+    {
+        Population population = populations[code];
+        field.clear(population.cell[slot]);
+        population.cell[slot] = -1;
+        population.dead++;
+    }
+
+    /**
+     * Close the gaps left by dead organisms, keeping the survivors in order.
+     * @param population The population to compact.
+     */
+    private void compact(Population population)
+    {
+        int kept = 0;
+        for(int slot = 0; slot < population.size; slot++) {
+            int cell = population.cell[slot];
+            if(cell >= 0) {
+                if(kept != slot) {
+                    population.cell[kept] = cell;
+                    population.age[kept] = population.age[slot];
+                    population.food[kept] = population.food[slot];
+                    population.female[kept] = population.female[slot];
+                    population.id[kept] = population.id[slot];
+                    slots[cell] = kept;
+                }
+                kept++;
+            }
+        }
+        population.size = kept;
+        population.dead = 0;
+    }
+
+    /**
+     * Build the rules of each species from its definition.
+     * @param parameters The parameters of the simulation.
+     * @return The rules, indexed by species code.
+     */
+    private static Rules[] createRules(Parameters parameters)
+    {
+        Rules[] rules = new Rules[Species.values().length + 1];
+        for(Species species : ANIMALS) {
+            rules[species.getCode()] = new Rules(species.getDefinition(), parameters);
+        }
+        return rules;
+    }
+
+    /**
+     * @return The animal species, in the order of Species.values().
+     */
+    private static Species[] animals()
+    {
+        Species[] animals = new Species[Species.values().length];
+        int count = 0;
+        for(Species species : Species.values()) {
+            if(species.getDefinition().isAnimal()) {
+                animals[count++] = species;
+            }
+        }
+        return Arrays.copyOf(animals, count);
+    }
+
+    /**
+     * The constants that govern one species.
+     */
+    private static class Rules
+    {
+        // The species the rules are for.
+        private Species species;
+        private int breedingAge;
+        private int maxAge;
+        private double breedingProbability;
+        private int maxLitterSize;
+        private int foodValue;
+        // The species it eats, one bit per species code.
+        private int diet;
+
+        Rules(SpeciesDefinition definition, Parameters parameters)
+        {
+            species = definition.getSpecies();
+            breedingAge = definition.getBreedingAge();
+            maxAge = definition.getMaxAge();
+            breedingProbability = parameters.getBreedingProbability(species);
+            maxLitterSize = definition.getMaxLitterSize();
+            foodValue = parameters.getFoodValue(species);
+            diet = definition.getDiet();
+        }
+    }
+
+    /**
+     * The organisms of one species, stored as parallel arrays.
+     * Entries from 0 to size - 1 are in use; a cell of -1 marks an
+     * organism that has died since the population was last compacted.
+     */
+    private static class Population
+    {
+        private int size;
+        // The number of entries in use that belong to dead organisms.
+        private int dead;
+        private int[] cell = new int[INITIAL_CAPACITY];
+        private int[] age = new int[INITIAL_CAPACITY];
+        private int[] food = new int[INITIAL_CAPACITY];
+        private boolean[] female = new boolean[INITIAL_CAPACITY];
+        private long[] id = new long[INITIAL_CAPACITY];
+
+        /**
+         * Make room for one more organism.
+         * @return The index of the new entry.
+         */
+        int add()
+        {
+            if(size == cell.length) {
+                int capacity = size * 2;
+                cell = Arrays.copyOf(cell, capacity);
+                age = Arrays.copyOf(age, capacity);
+                food = Arrays.copyOf(food, capacity);
+                female = Arrays.copyOf(female, capacity);
+                id = Arrays.copyOf(id, capacity);
+            }
+            return size++;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+/**
+ * A reusable list of the cells of a field whose species changed during
+ * a step (see Field.takeChanges). Code that mirrors the field, such as
+ * a view, only needs to update these cells. After the field has been
+ * cleared or created every cell counts as changed, and isAll returns
+ * true instead of the cells being listed.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class ChangedCells
+{
+    // The number of cells held before the list first grows.
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The changed cells, in increasing order.
+    private int[] cells;
+    // How many cells are held.
+    private int size;
+    // Whether every cell has changed.
+    private boolean all;
+
+    /**
+     * Create an empty list.
+     */
+    public ChangedCells()
+    {
+        cells = new int[INITIAL_CAPACITY];
+        size = 0;
+        all = false;
+    }
+
+    /**
+     * @return true if every cell has changed, in which case no cells
+     *         are listed.
+     */
+    public boolean isAll()
+    {
+        return all;
+    }
+
+    /**
+     * @return The number of cells listed.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Return a listed cell.
+     * @param index The position, between 0 and size() - 1.
+     * @return The cell index stored at that position.
+     */
+    public int get(int index)
+    {
+        return cells[index];
+    }
+
+    /**
+     * Remove all cells, and record whether every cell has changed.
+     * @param all true if every cell has changed.
+     */
+    void clear(boolean all)
+    {
+        size = 0;
+        this.all = all;
+    }
+
+    /**
+     * Add a cell to the list.
+     * @param cell The cell index.
+     */
+    void add(int cell)
+    {
+        if(size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        cells[size++] = cell;
+    }
+}
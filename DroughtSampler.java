@@ -0,0 +1,81 @@
+/**
+ * Picks which organisms die of drought on a step, among a run of them
+ * taken in a fixed order, such as the organisms and plants of one tile.
+ * Each organism dies with its species' probability (see
+ * ActivityTable.getDroughtDeathProbability), independently of the
+ * others, just as if each drew its own roll. Instead of a roll per
+ * organism, the sampler draws for each species how many organisms of
+ * it survive before the next one dies, and counts them down, so the
+ * random draws made grow with the number of deaths rather than with
+ * the population. The number that die of each species thereby follows
+ * the binomial distribution the rolls would give.
+ *
+ * A sampler has its own random stream, so that it can be used between
+ * the draws organisms make from theirs.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class DroughtSampler
+{
+    // All species, by ordinal.
+    private static final Species[] SPECIES = Species.values();
+
+    // The probability of each species dying of drought, by ordinal.
+    private double[] probabilities;
+    // How many more organisms of each species survive before the next
+    // death, by ordinal, or -1 if not yet drawn.
+    private int[] survivors;
+    // The stream the numbers of survivors are drawn from.
+    private RandomStream rand;
+
+    /**
+     * Create a sampler. It must be started before it is used.
+     */
+    public DroughtSampler()
+    {
+        probabilities = new double[Species.values().length];
+        survivors = new int[Species.values().length];
+        rand = new RandomStream();
+    }
+
+    /**
+     * Start a new run of organisms.
+     * @param randomizer The source of the sampler's random stream.
+     * @param step The number of the step.
+     * @param key What the run is, such as a tile; different runs in
+     *            the same step must have different keys.
+     * @param activity What the current time of day and weather mean
+     *                 for each species.
+     */
+    public void start(Randomizer randomizer, int step, long key, ActivityTable activity)
+    {
+        randomizer.reseed(rand, step, key);
+        for(Species species : SPECIES) {
+            probabilities[species.ordinal()] = activity.getDroughtDeathProbability(species);
+            survivors[species.ordinal()] = -1;
+        }
+    }
+
+    /**
+     * Decide whether the next organism of a species in the run dies of
+     * drought. Must be called once for each organism, in order.
+     * @param species The organism's species.
+     * @return true if it dies.
+     */
+    public boolean dies(Species species)
+    {
+        int i = species.ordinal();
+        if(probabilities[i] == 0) {
+            return false;
+        }
+        if(survivors[i] < 0) {
+            survivors[i] = rand.nextSkip(probabilities[i]);
+        }
+        if(survivors[i] == 0) {
+            survivors[i] = -1;
+            return true;
+        }
+        survivors[i]--;
+        return false;
+    }
+}
@@ -1,24 +1,131 @@
-import java.util.Collections;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Represent a rectangular grid of field positions.
  * Each position is able to store a single organism.
- * 
+ *
+ * Positions can be addressed either by Location or by a cell index
+ * (see cellOf). The cell based methods do not create any objects and
+ * are meant for code that runs on every step.
+ *
+ * The field is stored in square chunks of CHUNK_SIZE by CHUNK_SIZE
+ * positions, and a chunk is only allocated once something is placed
+ * in it. Chunks left empty are freed when changes are taken, so a
+ * large, mostly empty field only costs memory for its occupied
+ * chunks, plus one reference per chunk. Cells are numbered chunk by
+ * chunk, and row by row within a chunk, so cellOf does not number the
+ * positions of a row consecutively; positionOf gives the row by row
+ * number of a cell. Code that only needs the occupied part of the
+ * field can visit the allocated chunks (see nextChunk).
+ *
+ * Plants are kept in a layer of their own, one bit per cell, below the
+ * occupants (see placePlant), so that an animal can stand on a plant
+ * without removing it. A cell's species code is that of its occupant,
+ * or PLANT if it has none but holds a plant; clearing the cell shows
+ * the plant again. The plant is only removed by removePlant, as when
+ * it is eaten.
+ *
+ * The field remembers which cells have changed species since changes
+ * were last taken (see takeChanges), one bit per cell, so that views
+ * and other mirrors of the field only need to update those cells.
+ *
+ * For every cell the field also keeps how many of its neighbours hold
+ * each species, by gender (see countAdjacent), updated as organisms
+ * are placed and cleared. Whether an animal has a mate, food or room
+ * next to it can then be told without looking at its neighbours, and
+ * the neighbourhood queries return at once when there is nothing to
+ * find. A chunk is allocated as soon as any of its cells has an
+ * occupied neighbour, and is not freed while one does.
+ *
  * @author David J. Barnes, Michael Kölling and Nikita Lyakhovoy
  *
  */
 public class Field
 {
-    // A random number generator for providing random locations.
-    private static final Random rand = Randomizer.getRandom();
-    
+    // The width and depth of a chunk, in positions.
+    public static final int CHUNK_SIZE = 32;
+    // The number of cells in a chunk. The cells of chunk n are numbered
+    // from n * CHUNK_CELLS; at the edges of the field some of them lie
+    // outside it (see contains) and are always empty.
+    public static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+    // The number of bits in a position within a chunk's row, and in a
+    // cell within a chunk.
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CELL_SHIFT = 2 * CHUNK_SHIFT;
+    // The most freed chunks kept for reuse.
+    private static final int SPARE_CHUNKS = 16;
+    // The neighbour counts of a cell are packed in a long, four bits to
+    // a count and a byte to a species: the males of species code n are
+    // counted in bits 8n to 8n + 3 and the females in the four above.
+    // Objects that are not organisms are counted in the lowest four bits,
+    // as no species has code 0.
+    private static final int COUNT_BITS = 4;
+    private static final long COUNT_MASK = 0xF;
+    // Selects the low four bits of every byte.
+    private static final long LOW_NIBBLES = 0x0F0F0F0F0F0F0F0FL;
+    // The most species the packed counts have room for: a byte each,
+    // above the byte of objects that are not organisms.
+    public static final int MAX_SPECIES = Long.BYTES - 1;
+
+    static {
+        if(Species.values().length > MAX_SPECIES) {
+            throw new ExceptionInInitializerError(
+                "The field can count the neighbours of at most " + MAX_SPECIES
+                + " species, not " + Species.values().length + ".");
+        }
+    }
+
+    // The code of the plant species.
+    private static final byte PLANT = Species.PLANT.getCode();
+    // Selects the counts of the occupants an animal cannot move into.
+    private static final long BLOCKING = blockingCounts();
+
     // The depth and width of the field.
     private int depth, width;
-    // Storage for the animals.
-    private Object[][] field;
+    // The number of chunks across the field.
+    private int chunkCols;
+    // Each chunk, or null if it is not allocated.
+    private Chunk[] chunks;
+    // One bit for each allocated chunk, 64 chunks to an element.
+    private long[] allocated;
+    // Freed chunks kept for reuse, so that animals crossing back and
+    // forth between chunks do not allocate a new one each time.
+    private Chunk[] spare;
+    private int spareCount;
+    // The shared Location for each cell, created a row at a time when
+    // needed. Rows and locations are published through ROWS and
+    // LOCATIONS, as any thread may ask for a location.
+    private Location[][] locations;
+    // The number of cells holding each species, indexed by species code.
+    // Adders are used because several threads may place organisms at once.
+    private LongAdder[] counts;
+    // Whether every cell has changed since changes were last taken.
+    private volatile boolean allChanged;
+
+    // Updates the bits kept for a chunk's cells atomically.
+    private static final VarHandle BITS =
+        MethodHandles.arrayElementVarHandle(long[].class);
+    // Updates a chunk's number of occupied cells atomically.
+    private static final VarHandle OCCUPIED;
+    // Publish the rows of locations, and the locations in a row.
+    private static final VarHandle ROWS =
+        MethodHandles.arrayElementVarHandle(Location[][].class);
+    private static final VarHandle LOCATIONS =
+        MethodHandles.arrayElementVarHandle(Location[].class);
+
+    static {
+        try {
+            OCCUPIED = MethodHandles.lookup().findVarHandle(Chunk.class, "occupied", int.class);
+        }
+        catch(ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * Represent a field of the given dimensions.
@@ -27,32 +134,63 @@ public class Field
      */
     public Field(int depth, int width)
     {
+        long chunkRows = (depth + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        long columns = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if((chunkRows * columns) << CELL_SHIFT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A field of " + depth + "x" + width
+                                               + " has too many cells.");
+        }
         this.depth = depth;
         this.width = width;
-        field = new Object[depth][width];
+        chunkCols = (int) columns;
+        chunks = new Chunk[(int) (chunkRows * columns)];
+        allocated = new long[(chunks.length + 63) / 64];
+        spare = new Chunk[SPARE_CHUNKS];
+        locations = new Location[depth][];
+        counts = new LongAdder[Species.UNKNOWN + 1];
+        for(int code = 0; code < counts.length; code++) {
+            counts[code] = new LongAdder();
+        }
+        allChanged = true;
     }
-    
+
     /**
      * Empty the field.
      */
     public void clear()
     {
-        for(int row = 0; row < depth; row++) {
-            for(int col = 0; col < width; col++) {
-                field[row][col] = null;
-            }
+        Arrays.fill(chunks, null);
+        Arrays.fill(allocated, 0);
+        for(LongAdder count : counts) {
+            count.reset();
         }
+        allChanged = true;
     }
-    
+
     /**
      * Clear the given location.
      * @param location The location to clear.
      */
     public void clear(Location location)
     {
-        field[location.getRow()][location.getCol()] = null;
+        clear(cellOf(location));
     }
-    
+
+    /**
+     * Clear the given cell. A plant in the cell is left there.
+     * @param cell The cell to clear.
+     */
+    public void clear(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        if(chunk != null) {
+            int offset = cell & (CHUNK_CELLS - 1);
+            boolean plant = (chunk.plants[offset >>> 6] & 1L << offset) != 0;
+            setSpecies(chunk, cell, plant ? PLANT : Species.EMPTY, false);
+            chunk.occupants[offset] = null;
+        }
+    }
+
     /**
      * Place an animal at the given location.
      * If there is already an animal at the location it will
@@ -63,9 +201,9 @@ public class Field
      */
     public void place(Object animal, int row, int col)
     {
-        place(animal, new Location(row, col));
+        place(animal, cellOf(row, col));
     }
-    
+
     /**
      * Place an animal at the given location.
      * If there is already an animal at the location it will
@@ -75,9 +213,128 @@ public class Field
      */
     public void place(Object animal, Location location)
     {
-        field[location.getRow()][location.getCol()] = animal;
+        place(animal, cellOf(location));
+    }
+
+    /**
+     * Place an animal in the given cell.
+     * If there is already an animal in the cell it will
+     * be lost.
+     * @param animal The animal to be placed.
+     * @param cell Where to place the animal.
+     */
+    public void place(Object animal, int cell)
+    {
+        if(animal == null) {
+            clear(cell);
+        }
+        else {
+            Chunk chunk = chunkFor(cell);
+            boolean female = animal instanceof Animal && ((Animal) animal).getGender();
+            setSpecies(chunk, cell, Species.codeOf(animal), female);
+            chunk.occupants[cell & (CHUNK_CELLS - 1)] = animal;
+        }
+    }
+
+    /**
+     * Record a species in the given cell without placing an object
+     * there. This is for engines that do not use organism objects.
+     * The occupant is counted as male. Plants are put in a cell with
+     * placePlant instead.
+     * @param code The species code.
+     * @param cell The cell to record it in.
+     */
+    void placeSpecies(byte code, int cell)
+    {
+        placeSpecies(code, false, cell);
+    }
+
+    /**
+     * Record a species and gender in the given cell without placing an
+     * object there.
+     * @param code The species code.
+     * @param female Whether the occupant is female.
+     * @param cell The cell to record it in.
+     */
+    void placeSpecies(byte code, boolean female, int cell)
+    {
+        if(code == Species.EMPTY) {
+            clear(cell);
+        }
+        else {
+            Chunk chunk = chunkFor(cell);
+            setSpecies(chunk, cell, code, female);
+            chunk.occupants[cell & (CHUNK_CELLS - 1)] = null;
+        }
+    }
+
+    /**
+     * Put a plant in the given cell, below any occupant, with a byte of
+     * state for the plant (see getCellState). If the cell has no
+     * occupant its species becomes PLANT.
+     * @param cell The cell.
+     * @param state The plant's state.
+     */
+    void placePlant(int cell, byte state)
+    {
+        Chunk chunk = chunkFor(cell);
+        int offset = cell & (CHUNK_CELLS - 1);
+        long bit = 1L << offset;
+        chunk.state[offset] = state;
+        if((chunk.plants[offset >>> 6] & bit) == 0) {
+            BITS.getAndBitwiseOr(chunk.plants, offset >>> 6, bit);
+            counts[PLANT].increment();
+            if(chunk.species[offset] == Species.EMPTY) {
+                setSpecies(chunk, cell, PLANT, false);
+            }
+        }
     }
-    
+
+    /**
+     * Remove the plant in the given cell, if there is one. The cell's
+     * occupant, if any, stays.
+     * @param cell The cell.
+     */
+    void removePlant(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        int offset = cell & (CHUNK_CELLS - 1);
+        long bit = 1L << offset;
+        if(chunk != null && (chunk.plants[offset >>> 6] & bit) != 0) {
+            BITS.getAndBitwiseAnd(chunk.plants, offset >>> 6, ~bit);
+            counts[PLANT].decrement();
+            if(chunk.species[offset] == PLANT) {
+                setSpecies(chunk, cell, Species.EMPTY, false);
+            }
+        }
+    }
+
+    /**
+     * Check whether the given cell holds a plant, whether or not
+     * something stands on it (compare isPlantAt).
+     * @param cell The desired cell.
+     * @return true if there is a plant in the cell.
+     */
+    boolean hasPlant(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        int offset = cell & (CHUNK_CELLS - 1);
+        return chunk != null && (chunk.plants[offset >>> 6] & 1L << offset) != 0;
+    }
+
+    /**
+     * Return the byte of state kept for the plant in a cell. GrassLayer
+     * uses it to hold what it needs, and it goes when the cell's chunk
+     * is freed.
+     * @param cell A cell holding a plant.
+     * @return The plant's state.
+     */
+    byte getCellState(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        return chunk == null ? 0 : chunk.state[cell & (CHUNK_CELLS - 1)];
+    }
+
     /**
      * Return the animal at the given location, if any.
      * @param location Where in the field.
@@ -85,9 +342,9 @@ public class Field
      */
     public Object getObjectAt(Location location)
     {
-        return getObjectAt(location.getRow(), location.getCol());
+        return getObjectAt(cellOf(location));
     }
-    
+
     /**
      * Return the animal at the given location, if any.
      * @param row The desired row.
@@ -96,9 +353,265 @@ public class Field
      */
     public Object getObjectAt(int row, int col)
     {
-        return field[row][col];
+        return getObjectAt(cellOf(row, col));
+    }
+
+    /**
+     * Return the animal in the given cell, if any.
+     * @param cell The desired cell.
+     * @return The animal in the given cell, or null if there is none.
+     */
+    public Object getObjectAt(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        return chunk == null ? null : chunk.occupants[cell & (CHUNK_CELLS - 1)];
     }
-    
+
+    /**
+     * Return the species code at the given location.
+     * @param location Where in the field.
+     * @return The code of the species there, or Species.EMPTY.
+     */
+    public byte getSpeciesAt(Location location)
+    {
+        return getSpeciesAt(cellOf(location));
+    }
+
+    /**
+     * Return the species code at the given location.
+     * @param row The desired row.
+     * @param col The desired column.
+     * @return The code of the species there, or Species.EMPTY.
+     */
+    public byte getSpeciesAt(int row, int col)
+    {
+        return getSpeciesAt(cellOf(row, col));
+    }
+
+    /**
+     * Return the species code in the given cell.
+     * @param cell The desired cell.
+     * @return The code of the species there, or Species.EMPTY.
+     */
+    public byte getSpeciesAt(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        return chunk == null ? Species.EMPTY : chunk.species[cell & (CHUNK_CELLS - 1)];
+    }
+
+    /**
+     * Check whether nothing occupies the given location.
+     * @param location Where in the field.
+     * @return true if the location is empty.
+     */
+    public boolean isEmptyAt(Location location)
+    {
+        return getSpeciesAt(location) == Species.EMPTY;
+    }
+
+    /**
+     * Check whether a plant occupies the given location.
+     * @param location Where in the field.
+     * @return true if there is a plant at the location.
+     */
+    public boolean isPlantAt(Location location)
+    {
+        return isPlantAt(cellOf(location));
+    }
+
+    /**
+     * Check whether a plant occupies the given cell, with nothing
+     * standing on it (compare hasPlant).
+     * @param cell The desired cell.
+     * @return true if there is a plant in the cell.
+     */
+    public boolean isPlantAt(int cell)
+    {
+        return getSpeciesAt(cell) == Species.PLANT.getCode();
+    }
+
+    /**
+     * Check whether an animal could move into or be born in the cell.
+     * Free cells are empty or contain a plant (see SpeciesDefinition.isFree).
+     * @param cell The desired cell.
+     * @return true if the cell is free.
+     */
+    public boolean isFreeAt(int cell)
+    {
+        return SpeciesDefinition.isFree(getSpeciesAt(cell));
+    }
+
+    /**
+     * Return how many cells next to the given one hold a species of the
+     * given gender.
+     * @param cell The cell.
+     * @param code The species code.
+     * @param female true to count females, false to count males.
+     * @return The number of such neighbours.
+     */
+    public int countAdjacent(int cell, byte code, boolean female)
+    {
+        int shift = (code * 2 + (female ? 1 : 0)) * COUNT_BITS;
+        return (int) (neighbourCounts(cell) >>> shift & COUNT_MASK);
+    }
+
+    /**
+     * Return how many cells next to the given one hold any of a set of
+     * species.
+     * @param cell The cell.
+     * @param codes The species, one bit per species code, as in
+     *              SpeciesDefinition.getDiet.
+     * @return The number of such neighbours.
+     */
+    public int countAdjacent(int cell, int codes)
+    {
+        long selected = 0;
+        for(int bits = codes; bits != 0; bits &= bits - 1) {
+            selected |= 0xFFL << 8 * Integer.numberOfTrailingZeros(bits);
+        }
+        return sumCounts(neighbourCounts(cell) & selected);
+    }
+
+    /**
+     * Check whether an animal could move into a cell next to the given
+     * one (see isFreeAt).
+     * @param cell The cell.
+     * @return true if a neighbour is free.
+     */
+    public boolean hasFreeAdjacentCell(int cell)
+    {
+        int row = rowOf(cell);
+        int col = colOf(cell);
+        int rows = 1 + (row > 0 ? 1 : 0) + (row < depth - 1 ? 1 : 0);
+        int cols = 1 + (col > 0 ? 1 : 0) + (col < width - 1 ? 1 : 0);
+        return sumCounts(neighbourCounts(cell) & BLOCKING) < rows * cols - 1;
+    }
+
+    /**
+     * Return how many cells hold the given species. Plants are counted
+     * whether or not something stands on them.
+     * @param species The species to count.
+     * @return The number of cells holding it.
+     */
+    public int getCount(Species species)
+    {
+        return counts[species.getCode()].intValue();
+    }
+
+    /**
+     * List the cells whose species has changed since this was last
+     * called, and start remembering changes afresh. If the field has
+     * been created or cleared since, every cell has changed and the
+     * list only records that. Chunks that have been left empty, with
+     * no occupied cells next to them, are freed, once their changes
+     * have been listed. This must not be
+     * called while organisms are being stepped.
+     * @param changes Receives the changed cells.
+     */
+    public void takeChanges(ChangedCells changes)
+    {
+        boolean all = allChanged;
+        changes.clear(all);
+        allChanged = false;
+        for(int index = nextChunk(0); index >= 0; index = nextChunk(index + 1)) {
+            Chunk chunk = chunks[index];
+            long[] changed = chunk.changed;
+            for(int element = 0; element < changed.length; element++) {
+                long bits = changed[element];
+                if(bits != 0) {
+                    changed[element] = 0;
+                    if(!all) {
+                        int first = (index << CELL_SHIFT) + element * 64;
+                        while(bits != 0) {
+                            changes.add(first + Long.numberOfTrailingZeros(bits));
+                            bits &= bits - 1;
+                        }
+                    }
+                }
+            }
+            if(chunk.occupied == 0 && !chunk.hasOccupiedNeighbours()) {
+                chunks[index] = null;
+                allocated[index >>> 6] &= ~(1L << index);
+                if(spareCount < spare.length) {
+                    Arrays.fill(chunk.state, (byte) 0);
+                    spare[spareCount++] = chunk;
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the next allocated chunk. Every occupied cell is in an
+     * allocated chunk.
+     * @param from The chunk to start looking from.
+     * @return The first allocated chunk at or after from, or -1 if
+     *         there is none.
+     */
+    public int nextChunk(int from)
+    {
+        int element = from >>> 6;
+        if(from < 0 || element >= allocated.length) {
+            return -1;
+        }
+        long bits = allocated[element] & (-1L << from);
+        while(bits == 0) {
+            element++;
+            if(element == allocated.length) {
+                return -1;
+            }
+            bits = allocated[element];
+        }
+        return element * 64 + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * @return The number of chunks in the field, allocated or not.
+     */
+    public int getChunkCount()
+    {
+        return chunks.length;
+    }
+
+    /**
+     * @return The number of chunks across the field. Chunks are
+     *         numbered row by row.
+     */
+    public int getChunkColumns()
+    {
+        return chunkCols;
+    }
+
+    /**
+     * Return the chunk holding a cell.
+     * @param cell The cell index.
+     * @return The chunk's number.
+     */
+    public int chunkOf(int cell)
+    {
+        return cell >>> CELL_SHIFT;
+    }
+
+    /**
+     * @return One more than the highest cell index the field can use.
+     *         Not every index below it is a cell of the field (see
+     *         contains).
+     */
+    public int getCellCapacity()
+    {
+        return chunks.length << CELL_SHIFT;
+    }
+
+    /**
+     * Check whether a number is the index of a cell in the field.
+     * @param cell The number.
+     * @return true if it is the index of one of the field's cells.
+     */
+    public boolean contains(int cell)
+    {
+        return cell >= 0 && cell < getCellCapacity()
+            && rowOf(cell) < depth && colOf(cell) < width;
+    }
+
     /**
      * Generate a random location that is adjacent to the
      * given location, or is the same location.
@@ -112,7 +625,7 @@ public class Field
         List<Location> adjacent = adjacentLocations(location);
         return adjacent.get(0);
     }
-    
+
     /**
      * Get a shuffled list of the free adjacent locations.
      * Free adjacent locations also include locations with plants.
@@ -121,16 +634,9 @@ public class Field
      */
     public List<Location> getFreeAdjacentLocations(Location location)
     {
-        List<Location> free = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location);
-        for(Location next : adjacent) {
-            //checks whether the location is empty or contains a plant.
-            if(getObjectAt(next) == null || getObjectAt(next) instanceof Plant) {
-                free.add(next);
-            }
-
-        }
-        return free;
+        Neighbourhood free = new Neighbourhood();
+        freeAdjacentCells(cellOf(location), free);
+        return toLocations(free);
     }
 
 
@@ -140,17 +646,11 @@ public class Field
      * @return A list of free adjacent locations.
      */
     public List<Location> getFullAdjacentLocations(Location location){
-
-        List<Location> full = new LinkedList<>();
-        List<Location> adjacent = adjacentLocations(location);
-        for(Location next : adjacent) {
-            if(getObjectAt(next) != null) {
-                full.add(next);
-            }
-        }
-        return full;
+        Neighbourhood full = new Neighbourhood();
+        fullAdjacentCells(cellOf(location), full);
+        return toLocations(full);
     }
-    
+
     /**
      * Try to find a free location that is adjacent to the
      * given location. If there is none, return null.
@@ -161,10 +661,9 @@ public class Field
      */
     public Location freeAdjacentLocation(Location location)
     {
-        // The available free ones.
-        List<Location> free = getFreeAdjacentLocations(location);
-        if(free.size() > 0) {
-            return free.get(0);
+        int free = freeAdjacentCell(cellOf(location), new Neighbourhood());
+        if(free >= 0) {
+            return locationOf(free);
         }
         else {
             return null;
@@ -181,29 +680,196 @@ public class Field
     public List<Location> adjacentLocations(Location location)
     {
         assert location != null : "Null location passed to adjacentLocations";
-        // The list of locations to be returned.
-        List<Location> locations = new LinkedList<>();
+        Neighbourhood adjacent = new Neighbourhood();
         if(location != null) {
-            int row = location.getRow();
-            int col = location.getCol();
-            for(int roffset = -1; roffset <= 1; roffset++) {
-                int nextRow = row + roffset;
-                if(nextRow >= 0 && nextRow < depth) {
-                    for(int coffset = -1; coffset <= 1; coffset++) {
-                        int nextCol = col + coffset;
-                        // Exclude invalid locations and the original location.
-                        if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
-                            locations.add(new Location(nextRow, nextCol));
-                        }
+            adjacentCells(cellOf(location), adjacent);
+        }
+        return toLocations(adjacent);
+    }
+
+    /**
+     * Fill the neighbourhood with the cells adjacent to the given one,
+     * in a random order. The cell itself is not included.
+     * @param cell The cell from which to generate adjacencies.
+     * @param adjacent Receives the adjacent cells.
+     */
+    public void adjacentCells(int cell, Neighbourhood adjacent)
+    {
+        adjacent.clear();
+        int row = rowOf(cell);
+        int col = colOf(cell);
+        for(int roffset = -1; roffset <= 1; roffset++) {
+            int nextRow = row + roffset;
+            if(nextRow >= 0 && nextRow < depth) {
+                for(int coffset = -1; coffset <= 1; coffset++) {
+                    int nextCol = col + coffset;
+                    // Exclude invalid locations and the original location.
+                    if(nextCol >= 0 && nextCol < width && (roffset != 0 || coffset != 0)) {
+                        adjacent.add(cellOf(nextRow, nextCol));
                     }
                 }
             }
-            
-            // Shuffle the list. Several other methods rely on the list
-            // being in a random order.
-            Collections.shuffle(locations, rand);
         }
-        return locations;
+
+        // Shuffle the cells. Several other methods rely on them
+        // being in a random order. This draws from the random generator
+        // in the same way as Collections.shuffle.
+        RandomStream rand = Randomizer.getRandom();
+        for(int i = adjacent.size(); i > 1; i--) {
+            int j = rand.nextInt(i);
+            int swap = adjacent.get(i - 1);
+            adjacent.set(i - 1, adjacent.get(j));
+            adjacent.set(j, swap);
+        }
+    }
+
+    /**
+     * Fill the neighbourhood with the free cells adjacent to the given
+     * one, in a random order. Free cells also include cells with plants.
+     * @param cell The cell from which to generate adjacencies.
+     * @param free Receives the free adjacent cells.
+     */
+    public void freeAdjacentCells(int cell, Neighbourhood free)
+    {
+        if(!hasFreeAdjacentCell(cell)) {
+            free.clear();
+            return;
+        }
+        adjacentCells(cell, free);
+        int kept = 0;
+        for(int i = 0; i < free.size(); i++) {
+            int next = free.get(i);
+            if(isFreeAt(next)) {
+                free.set(kept++, next);
+            }
+        }
+        free.truncate(kept);
+    }
+
+    /**
+     * Fill the neighbourhood with the occupied cells adjacent to the
+     * given one, in a random order.
+     * @param cell The cell from which to generate adjacencies.
+     * @param full Receives the occupied adjacent cells.
+     */
+    public void fullAdjacentCells(int cell, Neighbourhood full)
+    {
+        if(neighbourCounts(cell) == 0) {
+            full.clear();
+            return;
+        }
+        adjacentCells(cell, full);
+        int kept = 0;
+        for(int i = 0; i < full.size(); i++) {
+            int next = full.get(i);
+            if(getSpeciesAt(next) != Species.EMPTY) {
+                full.set(kept++, next);
+            }
+        }
+        full.truncate(kept);
+    }
+
+    /**
+     * Try to find a free cell that is adjacent to the given one.
+     * @param cell The cell from which to generate an adjacency.
+     * @param scratch A neighbourhood the search may overwrite.
+     * @return A free adjacent cell, or -1 if there is none.
+     */
+    public int freeAdjacentCell(int cell, Neighbourhood scratch)
+    {
+        freeAdjacentCells(cell, scratch);
+        if(scratch.isEmpty()) {
+            return -1;
+        }
+        return scratch.get(0);
+    }
+
+    /**
+     * Return the cell index of the given position. Cells are numbered
+     * from zero, chunk by chunk, and row by row within each chunk.
+     * @param row The row.
+     * @param col The column.
+     * @return The cell index.
+     */
+    public int cellOf(int row, int col)
+    {
+        int chunk = (row >>> CHUNK_SHIFT) * chunkCols + (col >>> CHUNK_SHIFT);
+        return chunk << CELL_SHIFT | (row & (CHUNK_SIZE - 1)) << CHUNK_SHIFT
+            | (col & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The row of the cell.
+     */
+    public int rowOf(int cell)
+    {
+        int chunkRow = (cell >>> CELL_SHIFT) / chunkCols;
+        return chunkRow << CHUNK_SHIFT | (cell >>> CHUNK_SHIFT & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The column of the cell.
+     */
+    public int colOf(int cell)
+    {
+        int chunkCol = (cell >>> CELL_SHIFT) % chunkCols;
+        return chunkCol << CHUNK_SHIFT | (cell & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Return the position of a cell when the positions of the field
+     * are numbered row by row, starting from zero. This number does not
+     * depend on how the field is stored, so it can be used to identify
+     * a position in results that must not change if the storage does.
+     * @param cell The cell index.
+     * @return The position's number.
+     */
+    public int positionOf(int cell)
+    {
+        return rowOf(cell) * width + colOf(cell);
+    }
+
+    /**
+     * Return the cell index of the given location.
+     * @param location The location.
+     * @return The cell index.
+     */
+    public int cellOf(Location location)
+    {
+        return cellOf(location.getRow(), location.getCol());
+    }
+
+    /**
+     * Return the location of the given cell. The same Location object
+     * is returned every time for a given cell, whichever thread asks:
+     * if two threads create it at once, the one that stores it first
+     * wins and the other uses that.
+     * @param cell The cell index.
+     * @return The location of the cell.
+     */
+    public Location locationOf(int cell)
+    {
+        int row = rowOf(cell);
+        int col = colOf(cell);
+        Location[] rowLocations = (Location[]) ROWS.getAcquire(locations, row);
+        if(rowLocations == null) {
+            Location[] created = new Location[width];
+            rowLocations = (Location[]) ROWS.compareAndExchange(locations, row, null, created);
+            if(rowLocations == null) {
+                rowLocations = created;
+            }
+        }
+        Location location = (Location) LOCATIONS.getAcquire(rowLocations, col);
+        if(location == null) {
+            Location created = new Location(row, col);
+            location = (Location) LOCATIONS.compareAndExchange(rowLocations, col, null, created);
+            if(location == null) {
+                location = created;
+            }
+        }
+        return location;
     }
 
     /**
@@ -214,7 +880,7 @@ public class Field
     {
         return depth;
     }
-    
+
     /**
      * Return the width of the field.
      * @return The width of the field.
@@ -223,4 +889,207 @@ public class Field
     {
         return width;
     }
+
+    /**
+     * Return the chunk holding a cell, allocating it if need be.
+     * @param cell The cell index.
+     * @return The chunk.
+     */
+    private Chunk chunkFor(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        return chunk != null ? chunk : allocate(cell >>> CELL_SHIFT);
+    }
+
+    /**
+     * Allocate a chunk, unless another thread already has. A chunk
+     * freed earlier is reused if there is one.
+     * @param index The chunk's number.
+     * @return The chunk.
+     */
+    private synchronized Chunk allocate(int index)
+    {
+        Chunk chunk = chunks[index];
+        if(chunk == null) {
+            chunk = spareCount > 0 ? spare[--spareCount] : new Chunk();
+            chunks[index] = chunk;
+            allocated[index >>> 6] |= 1L << index;
+        }
+        return chunk;
+    }
+
+    /**
+     * Change the species code and gender of a cell, keeping the counts,
+     * the neighbour counts and the record of changed cells up to date.
+     * @param chunk The chunk holding the cell.
+     * @param cell The cell to change.
+     * @param code The new species code.
+     * @param female Whether the new occupant is female.
+     */
+    private void setSpecies(Chunk chunk, int cell, byte code, boolean female)
+    {
+        int offset = cell & (CHUNK_CELLS - 1);
+        byte old = chunk.species[offset];
+        long bit = 1L << offset;
+        boolean wasFemale = (chunk.female[offset >>> 6] & bit) != 0;
+        if(old != code || wasFemale != female) {
+            countNeighbours(cell, countOf(code, female) - countOf(old, wasFemale));
+        }
+        if(wasFemale != female) {
+            BITS.getAndBitwiseXor(chunk.female, offset >>> 6, bit);
+        }
+        if(old != code) {
+            // Plants are counted as they are put in and removed, as
+            // one may be hidden by an occupant.
+            if(old == Species.EMPTY) {
+                OCCUPIED.getAndAdd(chunk, 1);
+            }
+            else if(old != PLANT) {
+                counts[old].decrement();
+            }
+            if(code == Species.EMPTY) {
+                OCCUPIED.getAndAdd(chunk, -1);
+            }
+            else if(code != PLANT) {
+                counts[code].increment();
+            }
+            chunk.species[offset] = code;
+            if((chunk.changed[offset >>> 6] & bit) == 0) {
+                BITS.getAndBitwiseOr(chunk.changed, offset >>> 6, bit);
+            }
+        }
+    }
+
+    /**
+     * Add to the neighbour counts of every cell next to the given one,
+     * allocating their chunks if need be.
+     * @param cell The cell.
+     * @param delta The packed change to each count.
+     */
+    private void countNeighbours(int cell, long delta)
+    {
+        int row = rowOf(cell);
+        int col = colOf(cell);
+        int lastRow = Math.min(row + 1, depth - 1);
+        int lastCol = Math.min(col + 1, width - 1);
+        for(int nextRow = Math.max(row - 1, 0); nextRow <= lastRow; nextRow++) {
+            for(int nextCol = Math.max(col - 1, 0); nextCol <= lastCol; nextCol++) {
+                if(nextRow != row || nextCol != col) {
+                    int next = cellOf(nextRow, nextCol);
+                    chunkFor(next).neighbours[next & (CHUNK_CELLS - 1)] += delta;
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the packed count of one occupant of a cell.
+     * @param code The occupant's species code.
+     * @param female Whether the occupant is female.
+     * @return The count, or 0 for an empty cell.
+     */
+    private static long countOf(byte code, boolean female)
+    {
+        if(code == Species.EMPTY) {
+            return 0;
+        }
+        else if(code == Species.UNKNOWN) {
+            return 1;
+        }
+        return 1L << (code * 2 + (female ? 1 : 0)) * COUNT_BITS;
+    }
+
+    /**
+     * @param cell A cell.
+     * @return The packed counts of the cell's neighbours.
+     */
+    private long neighbourCounts(int cell)
+    {
+        Chunk chunk = chunks[cell >>> CELL_SHIFT];
+        return chunk == null ? 0 : chunk.neighbours[cell & (CHUNK_CELLS - 1)];
+    }
+
+    /**
+     * Add up packed counts. A cell has at most eight neighbours, so no
+     * sum can carry into the next byte.
+     * @param counts The counts.
+     * @return Their sum.
+     */
+    private static int sumCounts(long counts)
+    {
+        long bytes = (counts & LOW_NIBBLES) + (counts >>> COUNT_BITS & LOW_NIBBLES);
+        return (int) (bytes * 0x0101010101010101L >>> 56);
+    }
+
+    /**
+     * @return The packed counts of the occupants that are not free
+     *         (see SpeciesDefinition.isFree), with all bits set.
+     */
+    private static long blockingCounts()
+    {
+        long blocking = COUNT_MASK;
+        for(Species species : Species.values()) {
+            if(!SpeciesDefinition.isFree(species.getCode())) {
+                blocking |= 0xFFL << 8 * species.getCode();
+            }
+        }
+        return blocking;
+    }
+
+    /**
+     * Convert the cells of a neighbourhood to a list of locations.
+     * @param cells The cells to convert.
+     * @return The locations of the cells, in the same order.
+     */
+    private List<Location> toLocations(Neighbourhood cells)
+    {
+        List<Location> locations = new LinkedList<>();
+        for(int i = 0; i < cells.size(); i++) {
+            locations.add(locationOf(cells.get(i)));
+        }
+        return locations;
+    }
+
+    /**
+     * The contents of one chunk of the field, each array holding one
+     * entry per cell.
+     */
+    private static class Chunk
+    {
+        // The species code of each cell.
+        final byte[] species = new byte[CHUNK_CELLS];
+        // The organism in each cell.
+        final Object[] occupants = new Object[CHUNK_CELLS];
+        // The state kept for the plant in each cell (see getCellState).
+        final byte[] state = new byte[CHUNK_CELLS];
+        // The packed counts of each cell's neighbours (see countAdjacent).
+        // A count is only changed by the thread placing or clearing a
+        // cell next to it, so no two threads change one at once.
+        final long[] neighbours = new long[CHUNK_CELLS];
+        // One bit for each cell whose occupant is female. Set atomically,
+        // like the changed bits.
+        final long[] female = new long[CHUNK_CELLS / 64];
+        // One bit for each cell holding a plant (see placePlant). Set
+        // atomically, like the changed bits.
+        final long[] plants = new long[CHUNK_CELLS / 64];
+        // One bit for each cell whose species has changed since changes
+        // were last taken. Bits are set atomically because cells in one
+        // element may be changed by different threads.
+        final long[] changed = new long[CHUNK_CELLS / 64];
+        // The number of cells that are not empty. Updated through OCCUPIED.
+        volatile int occupied;
+
+        /**
+         * @return true if any cell has an occupied neighbour.
+         */
+        boolean hasOccupiedNeighbours()
+        {
+            for(long counts : neighbours) {
+                if(counts != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
 }
@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The plants of a field, kept as one byte per cell rather than as
+ * organism objects. Whether a cell holds a plant is recorded in the
+ * field's layer of plants, below the occupants (see Field.placePlant),
+ * and the low eight bits of the step at which each plant sprouted are
+ * kept in the field as the plant's state (see Field.getCellState), so
+ * plants only take memory in the chunks
+ * of the field that are allocated. A plant's age is the number of
+ * steps since it sprouted, which is worked out from the state as
+ * needed, so aging writes nothing; plants die long before their age
+ * could wrap around eight bits.
+ * Plants follow the rules in the definition of Species.PLANT: they age,
+ * may die of drought, and while active spread into the free cells
+ * around them.
+ *
+ * The plants of a rectangle of cells are stepped by one sweep over its
+ * rows (see step). A plant that sprouts during a step is of age zero
+ * until the step ends, so the sweep passes over it. Animals stand on
+ * plants without harming them, and a plant that an animal stands on
+ * goes on aging and spreading; only a plant that is eaten is removed.
+ *
+ * Each plant's random stream is reseeded from its position before it
+ * acts, and the plants that die of drought are picked by a sampler for
+ * each rectangle, so the results do not depend on the order in which
+ * rectangles are swept.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class GrassLayer
+{
+    // The characteristics of plants.
+    private static final SpeciesDefinition DEFINITION = Species.PLANT.getDefinition();
+    // The field whose plants these are.
+    private Field field;
+    // The source of each plant's random stream.
+    private Randomizer randomizer;
+    // The parameters of the simulation.
+    private Parameters parameters;
+
+    /**
+     * Create a layer for the given field.
+     * @param field The field whose plants these are.
+     * @param randomizer The source of each plant's random stream.
+     * @param parameters The parameters of the simulation.
+     */
+    public GrassLayer(Field field, Randomizer randomizer, Parameters parameters)
+    {
+        if(DEFINITION.getMaxAge() >= 0xFF) {
+            throw new IllegalStateException("Plant ages must fit in a byte.");
+        }
+        this.field = field;
+        this.randomizer = randomizer;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Put a plant in a cell, below whatever stands there, replacing
+     * any plant that was there.
+     * @param cell The cell.
+     * @param randomAge If true the plant has a random age, otherwise
+     *                  it is new.
+     * @param step The number of the current step.
+     */
+    public void plant(int cell, boolean randomAge, int step)
+    {
+        int age = randomAge ? Randomizer.getRandom().nextInt(DEFINITION.getMaxAge()) : 0;
+        field.placePlant(cell, (byte) (step - age));
+    }
+
+    /**
+     * @param cell A cell.
+     * @param step The number of the current step.
+     * @return The age of the plant in it.
+     * @throws IllegalArgumentException If there is no plant in the cell.
+     */
+    public int getAge(int cell, int step)
+    {
+        if(!field.hasPlant(cell)) {
+            throw new IllegalArgumentException("No plant in cell " + cell);
+        }
+        return ageOf(cell, step);
+    }
+
+    /**
+     * @param cell A cell holding a plant.
+     * @param step The number of the current step.
+     * @return The age of the plant.
+     */
+    private int ageOf(int cell, int step)
+    {
+        return (step - field.getCellState(cell)) & 0xFF;
+    }
+
+    /**
+     * Let the plants in a rectangle of cells act once, as in a step of
+     * the given number. Plants that sprout do not act until the next
+     * step. A plant may sprout in a cell next to the
+     * rectangle, so no other thread may touch those cells meanwhile.
+     * @param top The first row.
+     * @param left The first column.
+     * @param bottom One past the last row.
+     * @param right One past the last column.
+     * @param step The number of the step.
+     * @param activity What the current time of day and weather mean
+     *                 for each species.
+     * @param free A buffer for neighbourhood queries.
+     * @param drought Picks the plants that die of drought, in the order
+     *                swept. It must have been started for this step.
+     * @return The number of plants that sprouted.
+     */
+    public int step(int top, int left, int bottom, int right, int step,
+                    ActivityTable activity, Neighbourhood free, DroughtSampler drought)
+    {
+        boolean active = activity.isActive(Species.PLANT);
+        int maxAge = DEFINITION.getMaxAge();
+        int width = field.getWidth();
+        int sprouted = 0;
+        for(int row = top; row < bottom; row++) {
+            for(int col = left; col < right; col++) {
+                int cell = field.cellOf(row, col);
+                if(!field.hasPlant(cell)) {
+                    continue;
+                }
+                int newAge = ageOf(cell, step);
+                if(newAge == 0) {
+                    // It sprouted in this step.
+                    continue;
+                }
+                if(newAge > maxAge) {
+                    field.removePlant(cell);
+                    continue;
+                }
+                if(drought.dies(Species.PLANT)) {
+                    field.removePlant(cell);
+                    continue;
+                }
+                if(!active) {
+                    // Nothing else happens to an idle plant.
+                    continue;
+                }
+                // Reseed from the plant's position (see Field.positionOf).
+                RandomStream rand = randomizer.reseed(step, (long) row * width + col);
+                field.freeAdjacentCells(cell, free);
+                int offspring = makeOffspring(newAge, rand);
+                for(int b = 0; b < offspring && b < free.size(); b++) {
+                    int where = free.get(b);
+                    if(!field.hasPlant(where)) {
+                        field.placePlant(where, (byte) step);
+                        sprouted++;
+                    }
+                }
+            }
+        }
+        return sprouted;
+    }
+
+    /**
+     * Generate the number of offspring of a plant, if it can pollinate.
+     * @param plantAge The plant's age.
+     * @param rand The plant's random stream.
+     * @return The number of offspring (may be zero).
+     */
+    private int makeOffspring(int plantAge, RandomStream rand)
+    {
+        if(plantAge >= DEFINITION.getBreedingAge()
+                && rand.nextDouble() <= parameters.getBreedingProbability(Species.PLANT)) {
+            return rand.nextInt(DEFINITION.getMaxLitterSize()) + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Write the plants for a snapshot: their number, then the cell and
+     * age of each.
+     * @param snapshot Receives the plants.
+     * @param step The number of the current step.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    void writeState(Snapshot snapshot, int step) throws IOException
+    {
+        snapshot.reserve(4).putInt(field.getCount(Species.PLANT));
+        for(int chunk = field.nextChunk(0); chunk >= 0; chunk = field.nextChunk(chunk + 1)) {
+            int end = (chunk + 1) * Field.CHUNK_CELLS;
+            for(int cell = chunk * Field.CHUNK_CELLS; cell < end; cell++) {
+                if(field.hasPlant(cell)) {
+                    snapshot.reserve(5).putInt(cell).put((byte) ageOf(cell, step));
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the plants written by writeState into the field, where
+     * their cells must not hold plants already.
+     * @param buffer Holds the plants.
+     * @param step The number of the current step.
+     */
+    void readState(ByteBuffer buffer, int step)
+    {
+        int count = buffer.getInt();
+        for(int i = 0; i < count; i++) {
+            int cell = buffer.getInt();
+            byte plantAge = buffer.get();
+            if(!field.contains(cell) || field.hasPlant(cell)
+                    || plantAge < 0 || plantAge > DEFINITION.getMaxAge()) {
+                throw new IllegalArgumentException("Invalid plant in cell " + cell);
+            }
+            field.placePlant(cell, (byte) (step - plantAge));
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * A command line entry point that runs the simulation without a
+ * graphical view and without any delay between steps.
+ *
+ * Usage: java HeadlessSimulation depth width steps seed [output [threads [engine [export]]]]
+ *
+ * The throughput, heap use and final populations are printed, and also
+ * written to the output file if one is given. An output of "-" writes
+ * no file. With more than one thread the field is stepped in parallel
+ * tiles; the array engine always runs on one thread, and its report
+ * says so. The engine is "objects" (the default), "arrays" for the
+ * ArrayEngine, or "both" to run one after the other and compare them.
+ * If an export file is given, a summary of every step is written to
+ * it (see StepExporter): as CSV if its name ends in ".csv", otherwise
+ * in the binary format. When both engines are run, the engine's name
+ * is added to the export file's name.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class HeadlessSimulation
+{
+    /**
+     * Run a headless simulation.
+     * @param args depth, width, number of steps, seed, and optionally an
+     *             output path, a thread count and an engine.
+     */
+    public static void main(String[] args)
+    {
+        if(args.length < 4) {
+            System.err.println("Usage: java HeadlessSimulation depth width steps seed "
+                               + "[output [threads [objects|arrays|both [export]]]]");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        int width = Integer.parseInt(args[1]);
+        int steps = Integer.parseInt(args[2]);
+        long seed = Long.parseLong(args[3]);
+        String output = args.length > 4 && !args[4].equals("-") ? args[4] : null;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : 1;
+        String engine = args.length > 6 ? args[6] : "objects";
+        String export = args.length > 7 ? args[7] : null;
+
+        String report;
+        try {
+            if(engine.equals("objects")) {
+                report = run(depth, width, steps, seed, threads, false, export);
+            }
+            else if(engine.equals("arrays")) {
+                report = run(depth, width, steps, seed, threads, true, export);
+            }
+            else if(engine.equals("both")) {
+                report = run(depth, width, steps, seed, threads, false,
+                             export != null ? withSuffix(export, "-objects") : null)
+                    + System.lineSeparator()
+                    + run(depth, width, steps, seed, threads, true,
+                          export != null ? withSuffix(export, "-arrays") : null);
+            }
+            else {
+                System.err.println("Unknown engine: " + engine);
+                System.exit(1);
+                return;
+            }
+        }
+        catch(IOException e) {
+            System.err.println("Could not export the steps: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.print(report);
+
+        if(output != null) {
+            try(PrintWriter out = new PrintWriter(new FileWriter(output))) {
+                out.print(report);
+            }
+            catch(IOException e) {
+                System.err.println("Could not write " + output + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Run one simulation and describe how it went.
+     * @param depth Depth of the field.
+     * @param width Width of the field.
+     * @param steps The number of steps to run for.
+     * @param seed The random seed.
+     * @param threads The number of threads. The array engine uses one.
+     * @param useArrays Whether to use the ArrayEngine.
+     * @param export The file to export every step to, or null.
+     * @return A report of the run.
+     * @throws IOException If the steps cannot be exported.
+     */
+    private static String run(int depth, int width, int steps, long seed, int threads,
+                              boolean useArrays, String export)
+        throws IOException
+    {
+        if(useArrays) {
+            threads = 1;
+        }
+        Simulator simulator = new Simulator(depth, width, false, seed);
+        simulator.setThreadCount(threads);
+        StepExporter exporter = null;
+        if(export != null) {
+            exporter = new StepExporter(new File(export),
+                                        export.endsWith(".csv") ? StepExporter.Format.CSV
+                                                                : StepExporter.Format.BINARY);
+            simulator.addStepOutput(exporter);
+        }
+        simulator.setArrayEngine(useArrays);
+
+        long start = System.nanoTime();
+        simulator.simulate(steps);
+        long elapsed = System.nanoTime() - start;
+        if(exporter != null) {
+            exporter.close();
+        }
+
+        int stepsRun = simulator.getStep();
+        double seconds = elapsed / 1e9;
+        String report = "Engine: " + (useArrays ? "arrays" : "objects") + System.lineSeparator()
+            + "Grid: " + depth + "x" + width + System.lineSeparator()
+            + "Seed: " + seed + System.lineSeparator()
+            + "Threads: " + threads + System.lineSeparator()
+            + "Steps: " + stepsRun + System.lineSeparator()
+            + "Seconds: " + seconds + System.lineSeparator()
+            + "Steps per second: " + (stepsRun / seconds) + System.lineSeparator()
+            + "Heap used (MB): " + heapUsed() / (1024 * 1024) + System.lineSeparator()
+            + "Population: " + simulator.getPopulationDetails() + System.lineSeparator();
+        simulator.setThreadCount(1);
+        return report;
+    }
+
+    /**
+     * Add a suffix to a file name, before its extension if it has one.
+     * @param path The file name.
+     * @param suffix The suffix to add.
+     * @return The new file name.
+     */
+    private static String withSuffix(String path, String suffix)
+    {
+        int dot = path.lastIndexOf('.');
+        if(dot <= path.lastIndexOf(File.separatorChar)) {
+            return path + suffix;
+        }
+        return path.substring(0, dot) + suffix + path.substring(dot);
+    }
+
+    /**
+     * Estimate the heap in use, after asking for a garbage collection.
+     * @return The number of bytes in use.
+     */
+    private static long heapUsed()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -1,5 +1,8 @@
 /**
  * Represent a location in a rectangular grid.
+ * Locations are immutable. A Field hands out a single shared
+ * Location for each of its cells (see Field.locationOf), so code that
+ * only needs a position should prefer the field's cell indices.
  * 
  * @author David J. Barnes and Michael Kölling
  * @version 2016.02.29
@@ -7,8 +10,8 @@
 public class Location
 {
     // Row and column positions.
-    private int row;
-    private int col;
+    private final int row;
+    private final int col;
 
     /**
      * Represent a row and column.
@@ -26,7 +29,10 @@ public class Location
      */
     public boolean equals(Object obj)
     {
-        if(obj instanceof Location) {
+        if(obj == this) {
+            return true;
+        }
+        else if(obj instanceof Location) {
             Location other = (Location) obj;
             return row == other.getRow() && col == other.getCol();
         }
@@ -45,14 +51,33 @@ public class Location
     }
     
     /**
-     * Use the top 16 bits for the row value and the bottom for
-     * the column. Except for very big grids, this should give a
-     * unique hash code for each (row, col) pair.
+     * Hash the packed row and column (see pack), so that grids
+     * wider than 65536 columns do not collide on every row.
      * @return A hashcode for the location.
      */
     public int hashCode()
     {
-        return (row << 16) + col;
+        return Long.hashCode(pack(row, col) * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Pack a row and column into a single long, with the row in the
+     * top 32 bits. Every (row, col) pair gives a different value.
+     * @param row The row.
+     * @param col The column.
+     * @return The packed position.
+     */
+    public static long pack(int row, int col)
+    {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return This location packed into a single long (see pack).
+     */
+    public long pack()
+    {
+        return pack(row, col);
     }
     
     /**
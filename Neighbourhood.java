@@ -0,0 +1,89 @@
+/**
+ * A reusable buffer holding the cells adjacent to a location.
+ * Cells are stored as indices into the field (see Field.cellOf), so
+ * filling a neighbourhood does not create any objects. The buffer
+ * is refilled by each query made through the field.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class Neighbourhood
+{
+    // A location has at most eight neighbours.
+    private static final int MAX_NEIGHBOURS = 8;
+
+    // The cells currently held.
+    private int[] cells;
+    // How many cells are currently held.
+    private int size;
+
+    /**
+     * Create an empty neighbourhood.
+     */
+    public Neighbourhood()
+    {
+        cells = new int[MAX_NEIGHBOURS];
+        size = 0;
+    }
+
+    /**
+     * @return The number of cells held.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return true if no cells are held.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Return the cell at the given position.
+     * @param index The position, between 0 and size() - 1.
+     * @return The cell index stored at that position.
+     */
+    public int get(int index)
+    {
+        return cells[index];
+    }
+
+    /**
+     * Remove all cells.
+     */
+    void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Add a cell at the end.
+     * @param cell The cell index to add.
+     */
+    void add(int cell)
+    {
+        cells[size++] = cell;
+    }
+
+    /**
+     * Replace the cell at the given position.
+     * @param index The position, between 0 and size() - 1.
+     * @param cell The new cell index.
+     */
+    void set(int index, int cell)
+    {
+        cells[index] = cell;
+    }
+
+    /**
+     * Keep only the first cells, discarding the rest.
+     * @param newSize The number of cells to keep.
+     */
+    void truncate(int newSize)
+    {
+        size = newSize;
+    }
+}
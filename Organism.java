@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 import java.util.List;
 
 /**
@@ -9,33 +10,96 @@ public abstract class Organism
 {
     // Whether the organism is alive or not.
     private boolean alive;
+    // The organism's species.
+    private final Species species;
     // The organism's field.
     private Field field;
-    // The organism's position in the field.
-    private Location location;
+    // The organism's cell in the field, or -1 once it has died.
+    private int cell;
+    // An identifier used to choose the organism's random stream.
+    private long id;
+    // The parameters of the simulation the organism belongs to.
+    private Parameters parameters;
+    // The step at which the organism next has to act (see TimingWheel).
+    private int wakeStep;
 
+    // A buffer reused for the neighbourhood queries made while acting.
+    // Each thread has its own, as organisms may act on several threads.
+    private static final ThreadLocal<Neighbourhood> neighbours =
+        ThreadLocal.withInitial(Neighbourhood::new);
 
     /**
      * Create a new organism at location in field.
      * 
+     * @param species The organism's species.
      * @param field The field currently occupied.
      * @param location The location within the field.
      */
-    public Organism(Field field,Location location)
+    public Organism(Species species, Field field, Location location)
+    {
+        this(species, field, field.cellOf(location), new Parameters());
+    }
+
+    /**
+     * Create a new organism in the given cell of the field.
+     *
+     * @param species The organism's species.
+     * @param field The field currently occupied.
+     * @param cell The cell within the field.
+     * @param parameters The parameters of the simulation.
+     */
+    public Organism(Species species, Field field, int cell, Parameters parameters)
+    {
+        this(species, field, parameters);
+        setCell(cell);
+    }
+
+    /**
+     * Create a new organism that is not yet in the field. The subclass
+     * places it with setCell once it has the state the field counts,
+     * so that it is placed only once.
+     *
+     * @param species The organism's species.
+     * @param field The field it is to occupy.
+     * @param parameters The parameters of the simulation.
+     */
+    protected Organism(Species species, Field field, Parameters parameters)
     {
         alive = true;
+        this.species = species;
         this.field = field;
-        setLocation(location);
+        this.parameters = parameters;
+        this.cell = -1;
+        id = Randomizer.getRandom().nextLong();
     }
     
     /**
      * Make this organism act - that is: make it do
-     * whatever it wants/needs to do.
+     * whatever it wants/needs to do. An organism acts on the step after
+     * it is created and then on every step up to its wake step, which
+     * it may move later if it will have nothing to do until then.
      * @param newOrganisms A list to receive newly born organisms.
-     * @param timeOfDayString A string which represents the current time of day of the simulation.
-     * @param weather An object that contains the information about weather in the simulation.
+     * @param step The number of the step.
+     * @param activity What the current time of day and weather mean for each species.
      */
-    abstract public void act(List<Organism> newOrganisms, String timeOfDayString, Weather weather);
+    abstract public void act(List<Organism> newOrganisms, int step, ActivityTable activity);
+
+    /**
+     * Check whether the organism dies of old age or hunger at the given
+     * step. This is decided before anything else happens to it.
+     * @param step The number of the step.
+     * @return true if it has reached the end of its life.
+     */
+    abstract boolean hasReachedDeadline(int step);
+
+    /**
+     * Return the species of this organism.
+     * @return The organism's species.
+     */
+    public Species getSpecies()
+    {
+        return species;
+    }
 
     /**
      * Check whether the organism is alive or not.
@@ -54,20 +118,23 @@ public abstract class Organism
     protected void setDead()
     {
         alive = false;
-        if(location != null) {
-            field.clear(location);
-            location = null;
+        if(cell >= 0) {
+            field.clear(cell);
+            cell = -1;
             field = null;
         }
     }
 
     /**
      * Return the organism's location.
-     * @return The organism's location.
+     * @return The organism's location, or null if it has died.
      */
     protected Location getLocation()
     {
-        return location;
+        if(cell < 0) {
+            return null;
+        }
+        return field.locationOf(cell);
     }
     
     /**
@@ -76,13 +143,61 @@ public abstract class Organism
      */
     protected void setLocation(Location newLocation)
     {
-        if(location != null) {
-            field.clear(location);
+        setCell(field.cellOf(newLocation));
+    }
+
+    /**
+     * Return the organism's cell in the field.
+     * @return The organism's cell, or -1 if it has died.
+     */
+    protected int getCell()
+    {
+        return cell;
+    }
+
+    /**
+     * Place the organism in the new cell of its field.
+     * @param newCell The organism's new cell.
+     */
+    protected void setCell(int newCell)
+    {
+        if(cell >= 0) {
+            field.clear(cell);
         }
-        location = newLocation;
-        field.place(this, newLocation);
+        cell = newCell;
+        field.place(this, newCell);
     }
     
+    /**
+     * Return the organism's identifier. Identifiers are drawn from the
+     * random stream of whatever created the organism, so they are the
+     * same in every run with the same seed.
+     * @return The organism's identifier.
+     */
+    protected long getId()
+    {
+        return id;
+    }
+
+    /**
+     * Return the step at which the organism next has to act. It is
+     * left alone on the steps before.
+     * @return The wake step.
+     */
+    int getWakeStep()
+    {
+        return wakeStep;
+    }
+
+    /**
+     * Set the step at which the organism next has to act.
+     * @param step The wake step.
+     */
+    void setWakeStep(int step)
+    {
+        wakeStep = step;
+    }
+
     /**
      * Return the organism's field.
      * @return The organism's field.
@@ -91,4 +206,62 @@ public abstract class Organism
     {
         return field;
     }
+
+    /**
+     * Return the parameters of the organism's simulation.
+     * @return The parameters.
+     */
+    protected Parameters getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Return the likelihood of this organism breeding once it is old enough.
+     * @return The breeding probability of its species.
+     */
+    protected double getBreedingProbability()
+    {
+        return parameters.getBreedingProbability(getSpecies());
+    }
+
+    /**
+     * Return the number of steps this organism can go without eating.
+     * @return The food value of its species.
+     */
+    protected int getFoodValue()
+    {
+        return parameters.getFoodValue(getSpecies());
+    }
+
+    /**
+     * Write the organism's state for a snapshot. Its species and cell
+     * are written by the Simulator; subclasses add their own state.
+     * @param buffer Receives the state.
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        buffer.putLong(id);
+        buffer.putInt(wakeStep);
+    }
+
+    /**
+     * Read the organism's state from a snapshot.
+     * @param buffer Holds the state written by writeState.
+     */
+    void readState(ByteBuffer buffer)
+    {
+        id = buffer.getLong();
+        wakeStep = buffer.getInt();
+    }
+
+    /**
+     * Return this thread's buffer for neighbourhood queries. Its
+     * contents are only valid until the next query made with it.
+     * @return A reusable neighbourhood.
+     */
+    protected Neighbourhood getNeighbours()
+    {
+        return neighbours.get();
+    }
 }
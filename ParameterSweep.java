@@ -0,0 +1,370 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs many headless simulations at once, one for every combination of
+ * a grid of parameter values and a list of seeds. Each run has its own
+ * Simulator, Parameters and Randomizer, so runs do not affect each
+ * other and can be spread over all the cores. A run stops early once
+ * it is no longer viable.
+ *
+ * For each combination of parameter values (a "set"), the population
+ * of each species after every step is averaged over the runs with the
+ * different seeds, and written as one CSV row per set and step.
+ *
+ * Usage: java ParameterSweep depth width steps output [name=values ...]
+ *
+ * Each name is a parameter, such as "leopard.breeding" (see
+ * Parameters.set), followed by a comma separated list of values. The
+ * special names "seeds" and "threads" give the seeds to run each set
+ * with, as a list that may include ranges such as "1..100", and the
+ * number of runs to do at a time, which defaults to the number of
+ * processors.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class ParameterSweep
+{
+    // The size of the field in every run.
+    private int depth, width;
+    // The number of steps in every run.
+    private int steps;
+    // The seeds every set is run with.
+    private long[] seeds;
+    // The names of the parameters that vary, and the values of each.
+    private List<String> names;
+    private List<String[]> values;
+
+    /**
+     * Create a sweep that, so far, runs only the usual parameters.
+     * @param depth Depth of the field.
+     * @param width Width of the field.
+     * @param steps The number of steps in every run.
+     * @param seeds The seeds to run every set of parameters with.
+     */
+    public ParameterSweep(int depth, int width, int steps, long[] seeds)
+    {
+        if(seeds.length == 0) {
+            throw new IllegalArgumentException("At least one seed is needed.");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.steps = steps;
+        this.seeds = seeds.clone();
+        names = new ArrayList<>();
+        values = new ArrayList<>();
+    }
+
+    /**
+     * Vary a parameter over the given values. Every combination of the
+     * values of all the parameters is run.
+     * @param name The name of the parameter (see Parameters.set).
+     * @param parameterValues The values to run it with.
+     * @throws IllegalArgumentException If the name or a value is not valid.
+     */
+    public void addParameter(String name, String... parameterValues)
+    {
+        if(parameterValues.length == 0) {
+            throw new IllegalArgumentException("No values given for " + name);
+        }
+        // Check the values now, rather than part way through the sweep.
+        Parameters check = new Parameters();
+        for(String value : parameterValues) {
+            check.set(name, value);
+        }
+        names.add(name);
+        values.add(parameterValues.clone());
+    }
+
+    /**
+     * @return The number of combinations of parameter values.
+     */
+    public int getSetCount()
+    {
+        int sets = 1;
+        for(String[] options : values) {
+            sets = Math.multiplyExact(sets, options.length);
+        }
+        return sets;
+    }
+
+    /**
+     * Return the parameters of one set. The first parameter added
+     * varies fastest.
+     * @param set The number of the set, from 0 to getSetCount() - 1.
+     * @return The parameters.
+     */
+    public Parameters getParameters(int set)
+    {
+        Parameters parameters = new Parameters();
+        for(int i = 0; i < names.size(); i++) {
+            parameters.set(names.get(i), valueOf(set, i));
+        }
+        return parameters;
+    }
+
+    /**
+     * Run every set with every seed, and write the averaged population
+     * curves as CSV.
+     * @param threads The number of runs to do at a time.
+     * @param out Receives the CSV.
+     * @throws InterruptedException If interrupted while waiting for the runs.
+     * @throws ExecutionException If a run fails.
+     */
+    public void run(int threads, PrintWriter out)
+        throws InterruptedException, ExecutionException
+    {
+        if(threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        int sets = getSetCount();
+        List<Curve> curves = new ArrayList<>(sets);
+        for(int set = 0; set < sets; set++) {
+            curves.add(new Curve());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for(int set = 0; set < sets; set++) {
+                Parameters parameters = getParameters(set);
+                Curve curve = curves.get(set);
+                for(long seed : seeds) {
+                    runs.add(pool.submit(() -> curve.add(runOne(parameters, seed))));
+                }
+            }
+            for(Future<?> run : runs) {
+                run.get();
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        writeHeader(out);
+        for(int set = 0; set < sets; set++) {
+            curves.get(set).write(set, out);
+        }
+    }
+
+    /**
+     * Run one simulation, stopping early if it is no longer viable.
+     * @param parameters The parameters to use.
+     * @param seed The seed to use.
+     * @return The population of each species, by ordinal, after each
+     *         step. Entry 0 is the populated field, and there are no
+     *         entries after the run stopped.
+     */
+    private int[][] runOne(Parameters parameters, long seed)
+    {
+        Simulator simulator = new Simulator(depth, width, false, seed, parameters);
+        List<int[]> populations = new ArrayList<>(steps + 1);
+        populations.add(populationOf(simulator));
+        for(int step = 1; step <= steps && simulator.isViable(); step++) {
+            simulator.simulateOneStep();
+            populations.add(populationOf(simulator));
+        }
+        return populations.toArray(new int[populations.size()][]);
+    }
+
+    /**
+     * @param simulator A simulation.
+     * @return The population of each species, by ordinal.
+     */
+    private static int[] populationOf(Simulator simulator)
+    {
+        Species[] species = Species.values();
+        int[] population = new int[species.length];
+        for(int i = 0; i < species.length; i++) {
+            population[i] = simulator.getPopulation(species[i]);
+        }
+        return population;
+    }
+
+    /**
+     * Write the CSV column names.
+     * @param out Receives the CSV.
+     */
+    private void writeHeader(PrintWriter out)
+    {
+        StringBuilder header = new StringBuilder("set");
+        for(String name : names) {
+            header.append(',').append(name);
+        }
+        header.append(",step,runs");
+        for(Species species : Species.values()) {
+            header.append(',').append(species.getName());
+        }
+        out.println(header);
+    }
+
+    /**
+     * Return the value one parameter has in a set.
+     * @param set The number of the set.
+     * @param parameter The position of the parameter in names.
+     * @return The value.
+     */
+    private String valueOf(int set, int parameter)
+    {
+        for(int i = 0; i < parameter; i++) {
+            set /= values.get(i).length;
+        }
+        String[] options = values.get(parameter);
+        return options[set % options.length];
+    }
+
+    /**
+     * The total population of each species after each step, over the
+     * runs of one set. Runs finish on several threads at once.
+     */
+    private class Curve
+    {
+        // The total population of each species after each step.
+        private long[][] totals = new long[steps + 1][Species.values().length];
+        // The number of runs that reached each step.
+        private int[] runs = new int[steps + 1];
+
+        /**
+         * Add the populations of a run.
+         * @param populations The population of each species after each step.
+         */
+        synchronized void add(int[][] populations)
+        {
+            for(int step = 0; step < populations.length; step++) {
+                for(int i = 0; i < populations[step].length; i++) {
+                    totals[step][i] += populations[step][i];
+                }
+                runs[step]++;
+            }
+        }
+
+        /**
+         * Write the average populations as CSV rows, one for each step
+         * that at least one run reached.
+         * @param set The number of the set.
+         * @param out Receives the CSV.
+         */
+        synchronized void write(int set, PrintWriter out)
+        {
+            StringBuilder prefix = new StringBuilder().append(set);
+            for(int i = 0; i < names.size(); i++) {
+                prefix.append(',').append(valueOf(set, i));
+            }
+            for(int step = 0; step <= steps && runs[step] > 0; step++) {
+                StringBuilder row = new StringBuilder(prefix);
+                row.append(',').append(step).append(',').append(runs[step]);
+                for(long total : totals[step]) {
+                    row.append(',').append(String.format(Locale.ROOT, "%.2f",
+                                                         (double) total / runs[step]));
+                }
+                out.println(row);
+            }
+        }
+    }
+
+    /**
+     * Run a sweep from the command line.
+     * @param args depth, width, number of steps, output path, and then
+     *             any number of name=values pairs.
+     */
+    public static void main(String[] args)
+    {
+        if(args.length < 4) {
+            System.err.println("Usage: java ParameterSweep depth width steps output "
+                               + "[seeds=1..10] [threads=n] [species.property=v1,v2,...]");
+            System.exit(1);
+        }
+        int depth = Integer.parseInt(args[0]);
+        int width = Integer.parseInt(args[1]);
+        int steps = Integer.parseInt(args[2]);
+        String output = args[3];
+
+        long[] seeds = {1111};
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> sweptNames = new ArrayList<>();
+        List<String[]> sweptValues = new ArrayList<>();
+        for(int i = 4; i < args.length; i++) {
+            int equals = args[i].indexOf('=');
+            if(equals < 0) {
+                System.err.println("Expected name=values: " + args[i]);
+                System.exit(1);
+            }
+            String name = args[i].substring(0, equals);
+            String[] list = args[i].substring(equals + 1).split(",");
+            if(name.equals("seeds")) {
+                seeds = parseSeeds(list);
+            }
+            else if(name.equals("threads")) {
+                threads = Integer.parseInt(list[0]);
+            }
+            else {
+                sweptNames.add(name);
+                sweptValues.add(list);
+            }
+        }
+
+        ParameterSweep sweep = new ParameterSweep(depth, width, steps, seeds);
+        try {
+            for(int i = 0; i < sweptNames.size(); i++) {
+                sweep.addParameter(sweptNames.get(i), sweptValues.get(i));
+            }
+        }
+        catch(IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        try(PrintWriter out = new PrintWriter(new FileWriter(output))) {
+            sweep.run(threads, out);
+        }
+        catch(IOException e) {
+            System.err.println("Could not write " + output + ": " + e.getMessage());
+            System.exit(1);
+        }
+        catch(InterruptedException | ExecutionException e) {
+            System.err.println("The sweep failed: " + e);
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println((long) sweep.getSetCount() * seeds.length + " runs of "
+                           + sweep.getSetCount() + " sets in " + seconds + " seconds");
+    }
+
+    /**
+     * Read a list of seeds, where each entry is a seed or a range such
+     * as "1..10".
+     * @param list The entries.
+     * @return The seeds.
+     */
+    private static long[] parseSeeds(String[] list)
+    {
+        List<Long> seeds = new ArrayList<>();
+        for(String entry : list) {
+            int dots = entry.indexOf("..");
+            if(dots < 0) {
+                seeds.add(Long.parseLong(entry));
+            }
+            else {
+                long first = Long.parseLong(entry.substring(0, dots));
+                long last = Long.parseLong(entry.substring(dots + 2));
+                for(long seed = first; seed <= last; seed++) {
+                    seeds.add(seed);
+                }
+            }
+        }
+        long[] result = new long[seeds.size()];
+        for(int i = 0; i < result.length; i++) {
+            result[i] = seeds.get(i);
+        }
+        return result;
+    }
+}
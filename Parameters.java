@@ -0,0 +1,191 @@
+import java.nio.ByteBuffer;
+
+/**
+ * The values that can be varied from one run of the simulation to the
+ * next: how likely each species is to be placed in a cell when the
+ * field is populated, how likely it is to breed, and how many steps an
+ * animal can go without eating. A new Parameters holds the usual
+ * values, from each species' definition. A Simulator takes a copy of
+ * the parameters it is given, so one Parameters can be changed and
+ * reused for the next run.
+ *
+ * Parameters can also be set by name, as "species.property=value", for
+ * example "leopard.breeding=0.2" (see set).
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class Parameters
+{
+    // The probability of placing each species in a cell, by ordinal.
+    private double[] creationProbabilities;
+    // The likelihood of each species breeding, by ordinal.
+    private double[] breedingProbabilities;
+    // The food value of each species, by ordinal. Plants have none.
+    private int[] foodValues;
+
+    /**
+     * Create parameters holding the usual values.
+     */
+    public Parameters()
+    {
+        int species = Species.values().length;
+        creationProbabilities = new double[species];
+        breedingProbabilities = new double[species];
+        foodValues = new int[species];
+        for(Species each : Species.values()) {
+            SpeciesDefinition definition = each.getDefinition();
+            creationProbabilities[each.ordinal()] = definition.getCreationProbability();
+            breedingProbabilities[each.ordinal()] = definition.getBreedingProbability();
+            foodValues[each.ordinal()] = definition.getFoodValue();
+        }
+    }
+
+    /**
+     * Create a copy of other parameters.
+     * @param other The parameters to copy.
+     */
+    public Parameters(Parameters other)
+    {
+        creationProbabilities = other.creationProbabilities.clone();
+        breedingProbabilities = other.breedingProbabilities.clone();
+        foodValues = other.foodValues.clone();
+    }
+
+    /**
+     * @param species A species.
+     * @return The probability of placing it in a cell when populating.
+     */
+    public double getCreationProbability(Species species)
+    {
+        return creationProbabilities[species.ordinal()];
+    }
+
+    /**
+     * @param species A species.
+     * @param probability The probability of placing it in a cell when populating.
+     */
+    public void setCreationProbability(Species species, double probability)
+    {
+        creationProbabilities[species.ordinal()] = checkProbability(probability);
+    }
+
+    /**
+     * @param species A species.
+     * @return The likelihood of it breeding, or pollinating for plants,
+     *         once it is old enough.
+     */
+    public double getBreedingProbability(Species species)
+    {
+        return breedingProbabilities[species.ordinal()];
+    }
+
+    /**
+     * @param species A species.
+     * @param probability The likelihood of it breeding, or pollinating
+     *                    for plants, once it is old enough.
+     */
+    public void setBreedingProbability(Species species, double probability)
+    {
+        breedingProbabilities[species.ordinal()] = checkProbability(probability);
+    }
+
+    /**
+     * @param species An animal species.
+     * @return The number of steps it can go without eating.
+     */
+    public int getFoodValue(Species species)
+    {
+        return foodValues[species.ordinal()];
+    }
+
+    /**
+     * @param species An animal species.
+     * @param foodValue The number of steps it can go without eating.
+     *                  Must be at least 1.
+     */
+    public void setFoodValue(Species species, int foodValue)
+    {
+        if(!species.getDefinition().isAnimal()) {
+            throw new IllegalArgumentException(species.getName() + " has no food value.");
+        }
+        if(foodValue < 1) {
+            throw new IllegalArgumentException("Food value must be at least 1: " + foodValue);
+        }
+        foodValues[species.ordinal()] = foodValue;
+    }
+
+    /**
+     * Set a parameter by name. The name is a species and a property,
+     * separated by a dot: for example "boar.creation", "boar.breeding"
+     * or "boar.food".
+     * @param name The name of the parameter.
+     * @param value The new value.
+     * @throws IllegalArgumentException If the name or value is not valid.
+     */
+    public void set(String name, String value)
+    {
+        int dot = name.indexOf('.');
+        if(dot < 0) {
+            throw new IllegalArgumentException("Expected species.property: " + name);
+        }
+        Species species;
+        try {
+            species = Species.valueOf(name.substring(0, dot).toUpperCase());
+        }
+        catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown species in " + name);
+        }
+        String property = name.substring(dot + 1);
+        if(property.equals("creation")) {
+            setCreationProbability(species, Double.parseDouble(value));
+        }
+        else if(property.equals("breeding")) {
+            setBreedingProbability(species, Double.parseDouble(value));
+        }
+        else if(property.equals("food")) {
+            setFoodValue(species, Integer.parseInt(value));
+        }
+        else {
+            throw new IllegalArgumentException("Unknown property in " + name);
+        }
+    }
+
+    /**
+     * Write the parameters for a snapshot.
+     * @param buffer Receives the parameters.
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        for(int i = 0; i < foodValues.length; i++) {
+            buffer.putDouble(creationProbabilities[i]);
+            buffer.putDouble(breedingProbabilities[i]);
+            buffer.putInt(foodValues[i]);
+        }
+    }
+
+    /**
+     * Read the parameters from a snapshot.
+     * @param buffer Holds the parameters written by writeState.
+     */
+    void readState(ByteBuffer buffer)
+    {
+        for(int i = 0; i < foodValues.length; i++) {
+            creationProbabilities[i] = buffer.getDouble();
+            breedingProbabilities[i] = buffer.getDouble();
+            foodValues[i] = buffer.getInt();
+        }
+    }
+
+    /**
+     * Check that a value is a probability.
+     * @param probability The value to check.
+     * @return The value.
+     */
+    private static double checkProbability(double probability)
+    {
+        if(probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("Not a probability: " + probability);
+        }
+        return probability;
+    }
+}
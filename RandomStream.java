@@ -0,0 +1,122 @@
+/**
+ * A fast random number generator for use by a single thread.
+ * It uses the SplitMix64 algorithm (the one behind
+ * java.util.SplittableRandom) and, unlike java.util.Random, does no
+ * synchronization. Streams are reseeded by the Randomizer before each
+ * organism acts, so they are reused rather than created.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class RandomStream
+{
+    // The increment applied to the state for each value.
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // The scale for turning 53 random bits into a double.
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    // The current state of the generator.
+    private long state;
+
+    /**
+     * Create a stream with a seed of zero.
+     */
+    public RandomStream()
+    {
+        state = 0;
+    }
+
+    /**
+     * Restart the stream from the given seed.
+     * @param seed The new seed.
+     */
+    public void setSeed(long seed)
+    {
+        state = seed;
+    }
+
+    /**
+     * @return The current state, from which the stream can be restarted with setSeed.
+     */
+    public long getSeed()
+    {
+        return state;
+    }
+
+    /**
+     * @return A uniformly distributed long.
+     */
+    public long nextLong()
+    {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * Return a uniformly distributed int between 0 (inclusive) and
+     * bound (exclusive), without modulo bias.
+     * @param bound The upper bound. Must be positive.
+     * @return A value between 0 and bound - 1.
+     */
+    public int nextInt(int bound)
+    {
+        if(bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = (int) (nextLong() >>> 32);
+        int m = bound - 1;
+        if((bound & m) == 0) {
+            return r & m;
+        }
+        for(int u = r >>> 1; u + m - (r = u % bound) < 0; u = (int) (nextLong() >>> 33)) {
+            // Reject values from the incomplete last block.
+        }
+        return r;
+    }
+
+    /**
+     * @return A uniformly distributed double between 0.0 (inclusive) and 1.0 (exclusive).
+     */
+    public double nextDouble()
+    {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @return A random boolean.
+     */
+    public boolean nextBoolean()
+    {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Return how many trials fail before the next success, in a run of
+     * independent trials that each succeed with the given probability.
+     * Skipping that many trials picks out successes just as drawing for
+     * every trial would, with one draw per success rather than per trial.
+     * @param probability The probability of success. Must be greater than zero.
+     * @return The number of failures, or Integer.MAX_VALUE if there are
+     *         at least that many.
+     */
+    public int nextSkip(double probability)
+    {
+        if(probability >= 1) {
+            return 0;
+        }
+        // 1 - nextDouble() is never zero, so its logarithm is finite.
+        double skip = Math.floor(Math.log(1 - nextDouble()) / Math.log1p(-probability));
+        return skip < Integer.MAX_VALUE ? (int) skip : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Scramble the bits of a value. Close inputs give unrelated outputs.
+     * @param z The value to scramble.
+     * @return The scrambled value.
+     */
+    public static long mix64(long z)
+    {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,52 +1,88 @@
-import java.util.Random;
-
 /**
- * Provide control over the randomization of the simulation. By using the shared, fixed-seed 
- * randomizer, repeated runs will perform exactly the same (which helps with testing). Set 
- * 'useShared' to false to get different random behaviour every time.
+ * Provide control over the randomization of the simulation.
+ *
+ * Each simulation has its own Randomizer holding a seed. Before an
+ * organism acts, the simulation reseeds the current thread's stream
+ * from the seed, the step number and the organism's id. Every random
+ * decision therefore depends only on those three values and not on
+ * the order in which organisms happen to act, which keeps runs with a
+ * fixed seed repeatable however many threads are used. Set 'useShared'
+ * to false to get different random behaviour every time.
  * 
- * @author David J. Barnes and Michael Kölling
+ * @author David J. Barnes, Michael Kölling and Nikita Lyakhovoy
  * @version 2016.02.29
  */
 public class Randomizer
 {
     // The default seed for control of randomization.
     private static final int SEED = 1111;
-    // A shared Random object, if required.
-    private static final Random rand = new Random(SEED);
-    // Determine whether a shared random generator is to be provided.
+    // Determine whether the fixed default seed is to be used.
     private static final boolean useShared = true;
+    // The stream for each thread.
+    private static final ThreadLocal<RandomStream> streams =
+        ThreadLocal.withInitial(RandomStream::new);
+
+    // The seed of this simulation.
+    private long seed;
 
     /**
-     * Constructor for objects of class Randomizer
+     * Create a Randomizer with the default seed.
      */
     public Randomizer()
     {
+        this(useShared ? SEED : System.nanoTime());
+    }
+
+    /**
+     * Create a Randomizer with the given seed.
+     * @param seed The seed of the simulation.
+     */
+    public Randomizer(long seed)
+    {
+        this.seed = seed;
+    }
+
+    /**
+     * @return The seed of the simulation.
+     */
+    public long getSeed()
+    {
+        return seed;
     }
 
     /**
-     * Provide a random generator.
-     * @return A random object.
+     * Reseed the current thread's stream for the given step and key,
+     * such as an organism's id or a cell index.
+     * @param step The simulation step.
+     * @param key What the random values are drawn for.
+     * @return The reseeded stream, also returned by getRandom.
      */
-    public static Random getRandom()
+    public RandomStream reseed(int step, long key)
     {
-        if(useShared) {
-            return rand;
-        }
-        else {
-            return new Random();
-        }
+        return reseed(streams.get(), step, key);
     }
-    
+
+    /**
+     * Reseed the given stream, rather than the current thread's, for
+     * the given step and key.
+     * @param stream The stream.
+     * @param step The simulation step.
+     * @param key What the random values are drawn for.
+     * @return The reseeded stream.
+     */
+    public RandomStream reseed(RandomStream stream, int step, long key)
+    {
+        long mixed = RandomStream.mix64(seed ^ RandomStream.mix64(step));
+        stream.setSeed(RandomStream.mix64(mixed + key));
+        return stream;
+    }
+
     /**
-     * Reset the randomization.
-     * This will have no effect if randomization is not through
-     * a shared Random generator.
+     * Provide the current thread's random generator.
+     * @return A random stream.
      */
-    public static void reset()
+    public static RandomStream getRandom()
     {
-        if(useShared) {
-            rand.setSeed(SEED);
-        }
+        return streams.get();
     }
 }
@@ -1,8 +1,9 @@
-import java.util.Random;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * A simple predator-prey simulator, based on a rectangular field
@@ -19,29 +20,46 @@ public class Simulator
     private static final int DEFAULT_WIDTH = 180;
     // The default depth of the grid.
     private static final int DEFAULT_DEPTH = 140;
-    //
-    private static final double LEOPARD_CREATION_PROBABILITY = 0.02;
-    private static final double CHEETAH_CREATION_PROBABILITY = 0.02;
-    private static final double BOAR_CREATION_PROBABILITY = 0.08;
-    private static final double IMPALA_CREATION_PROBABILITY = 0.07;
-    private static final double RHINO_CREATION_PROBABILITY = 0.09;
+    // The key of the random stream used to change the weather.
+    private static final long WEATHER_KEY = -1;
+    // All species, by ordinal.
+    private static final Species[] SPECIES = Species.values();
 
-
-    private static final double GRASS_CREATION_PROBABILITY = 0.60;
-
-    // List of animals in the field.
-    private List<Organism> organisms;
+    // The animals in the field, by the step at which each next acts.
+    private TimingWheel organisms;
     // The current state of the field.
     private Field field;
+    // The plants of the field, when organism objects are in use.
+    private GrassLayer grass;
     // The current step of the simulation.
     private int step;
     // The current time of day of the simulation.
     private Time timeOfDay;
     // The current weather of the simulation.
     private Weather weather;
+    // What the time of day and weather mean for each species, updated
+    // whenever either changes.
+    private ActivityTable activity;
+    // Steps the organisms, on one or more threads.
+    private TiledStepper stepper;
+    // Runs the simulation without organism objects, or null if not in use.
+    private ArrayEngine arrayEngine;
+    // The source of all random decisions in the simulation.
+    private Randomizer randomizer;
+    // The values that may differ between runs, such as creation probabilities.
+    private Parameters parameters;
 
-    // A graphical view of the simulation.
+    // A graphical view of the simulation, or null when running headless.
     private SimulatorView view;
+    // Statistics used to check viability.
+    private FieldStats stats;
+    // A summary of the last step, and the outputs it is passed to.
+    private StepSummary summary;
+    private List<StepOutput> outputs;
+    // The births of each species in the last step, by ordinal.
+    private int[] born;
+    // The factor applied to every creation probability when populating.
+    private double density = 1.0;
 
     /**
      * Construct a simulation field with default size.
@@ -57,6 +75,69 @@ public class Simulator
      * @param width Width of the field. Must be greater than zero.
      */
     public Simulator(int depth, int width)
+    {
+        this(depth, width, true);
+    }
+
+    /**
+     * Create a simulation field with the given size, optionally without
+     * a graphical view. A headless simulation runs each step as fast as
+     * possible and needs no display.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param graphical Whether to create a SimulatorView.
+     */
+    public Simulator(int depth, int width, boolean graphical)
+    {
+        this(depth, width, graphical, new Randomizer(), new Parameters());
+        // Setup a valid starting point.
+        reset();
+    }
+
+    /**
+     * Create a simulation field with the given size and random seed.
+     * Runs with the same seed and size produce the same results,
+     * whatever the number of threads.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param graphical Whether to create a SimulatorView.
+     * @param seed The seed for all random decisions.
+     */
+    public Simulator(int depth, int width, boolean graphical, long seed)
+    {
+        this(depth, width, graphical, new Randomizer(seed), new Parameters());
+        // Setup a valid starting point.
+        reset();
+    }
+
+    /**
+     * Create a simulation field with the given size, random seed and
+     * parameters. The parameters are copied, so later changes to them
+     * do not affect this simulation.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param graphical Whether to create a SimulatorView.
+     * @param seed The seed for all random decisions.
+     * @param parameters The values to use in place of the usual ones.
+     */
+    public Simulator(int depth, int width, boolean graphical, long seed, Parameters parameters)
+    {
+        this(depth, width, graphical, new Randomizer(seed), new Parameters(parameters));
+        // Setup a valid starting point.
+        reset();
+    }
+
+    /**
+     * Create a simulation field with the given size, randomizer and
+     * parameters. The field is left empty.
+     * @param depth Depth of the field. Must be greater than zero.
+     * @param width Width of the field. Must be greater than zero.
+     * @param graphical Whether to create a SimulatorView.
+     * @param randomizer The source of all random decisions.
+     * @param parameters The parameters of the simulation.
+     */
+    private Simulator(int depth, int width, boolean graphical, Randomizer randomizer,
+                      Parameters parameters)
     {
         if(width <= 0 || depth <= 0) {
             System.out.println("The dimensions must be greater than zero.");
@@ -65,24 +146,33 @@ public class Simulator
             width = DEFAULT_WIDTH;
         }
         
-        organisms = new ArrayList<>();
+        organisms = new TimingWheel();
         field = new Field(depth, width);
+        this.randomizer = randomizer;
+        this.parameters = parameters;
+        grass = new GrassLayer(field, randomizer, parameters);
+        stepper = new TiledStepper(field, grass, 1, randomizer);
 
         timeOfDay = new Time();
         weather = new Weather();
+        activity = new ActivityTable();
 
-        // Create a view of the state of each location in the field.
-        view = new SimulatorView(depth, width);
+        stats = new FieldStats();
+        summary = new StepSummary();
+        outputs = new ArrayList<>();
+        born = new int[Species.values().length];
 
-        view.setColor(Cheetah.class,Color.RED);
-        view.setColor(Leopard.class,Color.YELLOW);
-        view.setColor(Boar.class,Color.BLUE);
-        view.setColor(Impala.class,Color.MAGENTA);
-        view.setColor(Rhino.class,Color.ORANGE);
-        view.setColor(Plant.class,Color.GREEN);
-        
-        // Setup a valid starting point.
-        reset();
+        if(graphical) {
+            // Create a view of the state of each location in the field.
+            view = new SimulatorView(depth, width);
+
+            view.setColor(Species.CHEETAH, Color.RED);
+            view.setColor(Species.LEOPARD, Color.YELLOW);
+            view.setColor(Species.BOAR, Color.BLUE);
+            view.setColor(Species.IMPALA, Color.MAGENTA);
+            view.setColor(Species.RHINO, Color.ORANGE);
+            view.setColor(Species.PLANT, Color.GREEN);
+        }
     }
     
     /**
@@ -101,11 +191,40 @@ public class Simulator
      */
     public void simulate(int numSteps)
     {
-        for(int step = 1; step <= numSteps && view.isViable(field); step++) {
+        for(int step = 1; step <= numSteps && isViable(); step++) {
             simulateOneStep();
-            delay(15);   // uncomment this to run more slowly
+            if(view != null && this.step % view.getRenderInterval() == 0) {
+                delay(15);   // uncomment this to run more slowly
+            }
+        }
+        if(view != null) {
+            // Show where the run stopped, even between frames.
+            view.showLatest();
         }
     }
+
+    /**
+     * Show only every so many steps in the view, so that a long run can
+     * be watched going by faster. Steps between are run without the
+     * pause that lets each one be seen. This does nothing for a
+     * headless simulation.
+     * @param steps The number of steps between frames. Must be at least 1.
+     */
+    public void setRenderInterval(int steps)
+    {
+        if(view != null) {
+            view.setRenderInterval(steps);
+        }
+    }
+
+    /**
+     * Determine whether the simulation should continue to run.
+     * @return true If there is more than one species alive.
+     */
+    public boolean isViable()
+    {
+        return stats.isViable(field);
+    }
     
     /**
      * Run the simulation from its current state for a single step.
@@ -117,26 +236,31 @@ public class Simulator
         step++;
 
         //Set a new time of day every 3 steps
-        if (step % 3 == 0 ){timeOfDay.incrementTimeOfDay();}
-        //New weather every 12 steps/ a day
-        if (step % 12 == 0){weather.setRandomWeather();}
-
-        // Provide space for newborn organisms.
-        List<Organism> newOrganisms = new ArrayList<>();
-        // Let organisms act.
-        for(Iterator<Organism> it = organisms.iterator(); it.hasNext(); ) {
-            Organism organism = it.next();
-            organism.act(newOrganisms, timeOfDay.getTimeOfDay(), weather);
-            if(! organism.isAlive()) {
-                it.remove();
+        if (step % Time.STEPS_PER_TIME_OF_DAY == 0 ){
+            timeOfDay.incrementTimeOfDay();
+            //New weather every 12 steps/ a day
+            if (step % Time.STEPS_PER_DAY == 0){
+                randomizer.reseed(step, WEATHER_KEY);
+                weather.setRandomWeather();
             }
+            activity.update(timeOfDay.getState(), weather, step);
+        }
+
+        if(arrayEngine != null) {
+            arrayEngine.step(step, activity);
+        }
+        else {
+            stepper.step(organisms, step, activity);
+        }
+        for(Species species : SPECIES) {
+            born[species.ordinal()] = arrayEngine != null ? arrayEngine.getBirths(species)
+                                                          : stepper.getBirths(species);
         }
-               
-        // Add the newly born animals and plants to the main lists.
-        organisms.addAll(newOrganisms);
+        summary.update(step, timeOfDay, weather, field, born);
+        notifyOutputs();
 
         //show the current state of the simulation in the view
-        view.showStatus(step,timeOfDay.getTimeOfDay(), weather.getCurrentWeather() ,field);
+        showStatus();
     }
 
         
@@ -147,12 +271,184 @@ public class Simulator
     {
         step = 0;
         timeOfDay.reset();
+        randomizer.reseed(step, WEATHER_KEY);
         weather.reset();
+        activity.update(timeOfDay.getState(), weather, step);
         organisms.clear();
         populate();
+        summary.reset(step, timeOfDay, weather, field);
+        notifyOutputs();
         
         // Show the starting state in the view.
-        view.showStatus(step,timeOfDay.getTimeOfDay(),weather.getCurrentWeather(),field);
+        showStatus();
+    }
+
+    /**
+     * Pass a summary of every step from now on to the given output.
+     * A summary of the populated field is passed as step 0 whenever the
+     * simulation is reset.
+     * @param output The output to add.
+     */
+    public void addStepOutput(StepOutput output)
+    {
+        outputs.add(output);
+    }
+
+    /**
+     * Stop passing summaries to the given output.
+     * @param output The output to remove.
+     */
+    public void removeStepOutput(StepOutput output)
+    {
+        outputs.remove(output);
+    }
+
+    /**
+     * Pass the summary of the last step to every output.
+     */
+    private void notifyOutputs()
+    {
+        for(int i = 0; i < outputs.size(); i++) {
+            outputs.get(i).stepped(summary);
+        }
+    }
+
+    /**
+     * Show the current state of the simulation in the view, if there is one.
+     */
+    private void showStatus()
+    {
+        if(view != null) {
+            view.showStatus(step,timeOfDay.getTimeOfDay(),weather.getCurrentWeather(),field,
+                            summary.getChangedCells());
+        }
+    }
+
+    /**
+     * Set how many threads are used to step the organisms. The field
+     * is split into tiles that are stepped in parallel (see
+     * TiledStepper). The results do not depend on the thread count.
+     * @param threads The number of threads. Must be at least 1.
+     */
+    public void setThreadCount(int threads)
+    {
+        if(threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        stepper.shutdown();
+        stepper = new TiledStepper(field, grass, threads, randomizer);
+    }
+
+    /**
+     * Choose whether organisms are stepped as objects, or by an
+     * ArrayEngine that keeps them in primitive arrays. Both follow the
+     * same rules. The simulation is reset. The array engine is single
+     * threaded and cannot be used with a graphical view.
+     * @param useArrays true to use the array engine.
+     */
+    public void setArrayEngine(boolean useArrays)
+    {
+        if(useArrays && view != null) {
+            throw new IllegalStateException("The array engine cannot be shown in a view.");
+        }
+        arrayEngine = useArrays ? new ArrayEngine(field, grass, randomizer, parameters) : null;
+        reset();
+    }
+
+    /**
+     * @return The number of steps simulated since the last reset.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * Scale every creation probability used to populate the field, then
+     * reset the simulation. A density of 1 gives the usual population.
+     * @param density The factor to apply. Must be greater than zero.
+     */
+    void setDensity(double density)
+    {
+        if(density <= 0) {
+            throw new IllegalArgumentException("Density out of range: " + density);
+        }
+        this.density = density;
+        reset();
+    }
+
+    /**
+     * @return The field being simulated.
+     */
+    Field getField()
+    {
+        return field;
+    }
+
+    /**
+     * @return The organisms in the field, when organism objects are in
+     *         use, in the order in which they next act.
+     */
+    List<Organism> getOrganisms()
+    {
+        return organisms.getOrganisms(step);
+    }
+
+    /**
+     * @return The plants of the field, when organism objects are in use.
+     */
+    GrassLayer getGrass()
+    {
+        return grass;
+    }
+
+    /**
+     * @return The current weather.
+     */
+    Weather getWeather()
+    {
+        return weather;
+    }
+
+    /**
+     * Save the complete state of the simulation, so that it can be
+     * continued later (see Snapshot).
+     * @param file The file to save it in.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(File file) throws IOException
+    {
+        Snapshot.save(this, file);
+    }
+
+    /**
+     * Restore a simulation saved with save. It continues exactly as the
+     * saved simulation would have done.
+     * @param file The file it was saved in.
+     * @param graphical Whether to create a SimulatorView.
+     * @return The restored simulation.
+     * @throws IOException If the file cannot be read or is not a snapshot.
+     */
+    public static Simulator load(File file, boolean graphical) throws IOException
+    {
+        return Snapshot.load(file, graphical);
+    }
+
+    /**
+     * @param species A species.
+     * @return The number of organisms of that species in the field.
+     */
+    public int getPopulation(Species species)
+    {
+        return field.getCount(species);
+    }
+
+    /**
+     * @return A description of the current population of the field.
+     */
+    public String getPopulationDetails()
+    {
+        return stats.getPopulationDetails(field);
     }
     
     /**
@@ -160,44 +456,151 @@ public class Simulator
      */
     private void populate()
     {
-        Random rand = Randomizer.getRandom();
-        field.clear();
+        if(arrayEngine != null) {
+            arrayEngine.clear();
+        }
+        else {
+            field.clear();
+        }
+        // Each species is tried in turn, so later species only get the
+        // cells left by earlier ones.
+        Species[] candidates = Species.values();
         for(int row = 0; row < field.getDepth(); row++) {
             for(int col = 0; col < field.getWidth(); col++) {
-                if(rand.nextDouble() <= LEOPARD_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Leopard leopard = new Leopard(true, field, location);
-                    organisms.add(leopard);
-                }
-                else if(rand.nextDouble() <= CHEETAH_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Cheetah cheetah = new Cheetah(true, field, location);
-                    organisms.add(cheetah);
-                }
-                else if(rand.nextDouble() <= BOAR_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Boar boar = new Boar(true, field, location);
-                    organisms.add(boar);
+                int cell = field.cellOf(row, col);
+                RandomStream rand = randomizer.reseed(0, field.positionOf(cell));
+                Species species = null;
+                for(Species candidate : candidates) {
+                    if(rand.nextDouble() <= parameters.getCreationProbability(candidate) * density) {
+                        species = candidate;
+                        break;
+                    }
                 }
-                else if(rand.nextDouble() <= IMPALA_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Impala impala = new Impala(true, field, location);
-                    organisms.add(impala);
+                // If no species was chosen, leave the location empty.
+                if(species != null) {
+                    if(!species.getDefinition().isAnimal()) {
+                        grass.plant(cell, true, step);
+                    }
+                    else if(arrayEngine != null) {
+                        arrayEngine.add(species, cell, true);
+                    }
+                    else {
+                        organisms.add(createOrganism(species, cell), step);
+                    }
                 }
-                else if(rand.nextDouble() <= RHINO_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Rhino rhino = new Rhino(true, field, location);
-                    organisms.add(rhino);
-                }
-                else if(rand.nextDouble() <= GRASS_CREATION_PROBABILITY) {
-                    Location location = new Location(row, col);
-                    Plant plant = new Plant(true, field, location);
-                    organisms.add(plant);
-                }
-                // else leave the location empty.
             }
         }
     }
+
+    /**
+     * Write the state of the simulation for a snapshot. The random
+     * streams are reseeded from the seed before every use, so the seed
+     * is all that is needed to restore them. Organisms are written in
+     * the order in which they next act, with their wake steps, followed
+     * by the plants.
+     * @param snapshot Receives the state.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    void writeState(Snapshot snapshot) throws IOException
+    {
+        ByteBuffer header = snapshot.reserve(Snapshot.RECORD_SIZE);
+        header.put((byte) (arrayEngine != null ? 1 : 0));
+        header.putInt(field.getDepth());
+        header.putInt(field.getWidth());
+        header.putLong(randomizer.getSeed());
+        header.putDouble(density);
+        header.putInt(step);
+        parameters.writeState(header);
+        timeOfDay.writeState(header);
+        weather.writeState(header);
+
+        if(arrayEngine != null) {
+            arrayEngine.writeState(snapshot);
+        }
+        else {
+            List<Organism> alive = organisms.getOrganisms(step);
+            snapshot.reserve(4).putInt(alive.size());
+            for(Organism organism : alive) {
+                int cell = organism.getCell();
+                ByteBuffer record = snapshot.reserve(Snapshot.RECORD_SIZE);
+                record.put(organism.getSpecies().getCode());
+                record.putInt(cell);
+                organism.writeState(record);
+            }
+        }
+        grass.writeState(snapshot, step);
+    }
+
+    /**
+     * Create a simulation from the state written by writeState.
+     * @param buffer Holds the state.
+     * @param graphical Whether to create a SimulatorView.
+     * @return The restored simulation.
+     */
+    static Simulator readState(ByteBuffer buffer, boolean graphical)
+    {
+        boolean arrays = buffer.get() != 0;
+        int depth = buffer.getInt();
+        int width = buffer.getInt();
+        if(depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("Invalid size: " + depth + "x" + width);
+        }
+        if(arrays && graphical) {
+            throw new IllegalStateException("The array engine cannot be shown in a view.");
+        }
+        Randomizer randomizer = new Randomizer(buffer.getLong());
+        double density = buffer.getDouble();
+        int step = buffer.getInt();
+        Parameters parameters = new Parameters();
+        parameters.readState(buffer);
+
+        Simulator simulator = new Simulator(depth, width, graphical, randomizer, parameters);
+        simulator.density = density;
+        simulator.step = step;
+        simulator.timeOfDay.readState(buffer);
+        simulator.weather.readState(buffer);
+        simulator.activity.update(simulator.timeOfDay.getState(), simulator.weather, step);
+        if(arrays) {
+            simulator.arrayEngine = new ArrayEngine(simulator.field, simulator.grass, randomizer, parameters);
+            simulator.arrayEngine.readState(buffer);
+        }
+        else {
+            simulator.readOrganisms(buffer);
+        }
+        simulator.grass.readState(buffer, step);
+        simulator.summary.reset(step, simulator.timeOfDay, simulator.weather, simulator.field);
+        simulator.showStatus();
+        return simulator;
+    }
+
+    /**
+     * Read the organisms written by writeState into the empty field.
+     * @param buffer Holds the organisms.
+     */
+    private void readOrganisms(ByteBuffer buffer)
+    {
+        int count = buffer.getInt();
+        for(int i = 0; i < count; i++) {
+            Species species = Species.fromCode(buffer.get());
+            int cell = buffer.getInt();
+            if(species == null || !species.getDefinition().isAnimal()
+                    || !field.contains(cell) || field.getSpeciesAt(cell) != Species.EMPTY) {
+                throw new IllegalArgumentException("Invalid organism in cell " + cell);
+            }
+            organisms.add(new Animal(species, field, cell, parameters, buffer), step);
+        }
+    }
+
+    /**
+     * Create an animal of random age in the given cell.
+     * @param species The species of the animal.
+     * @param cell The cell to place it in.
+     * @return The new animal.
+     */
+    private Organism createOrganism(Species species, int cell)
+    {
+        return new Animal(species, true, field, cell, parameters, step);
+    }
     
     /**
      * Pause for a given time.
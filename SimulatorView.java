@@ -1,8 +1,12 @@
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.lang.reflect.InvocationTargetException;
 import javax.swing.*;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A graphical view of the simulation grid.
@@ -10,6 +14,19 @@ import java.util.Map;
  * representing its contents. It uses a default background color.
  * Colors for each type of species can be defined using the
  * setColor method.
+ *
+ * The field is drawn into an image with one pixel per location, by
+ * writing the color of each location's species code straight into the
+ * image's pixels. The image is scaled up to the size of the window
+ * when it is painted, and the gridlines drawn over it. Only the pixels
+ * of cells that changed are rewritten.
+ *
+ * Drawing is done by a thread of the view's own, so the simulation
+ * never waits for the screen. showStatus only copies the changes into
+ * a Frame and hands it over. If the drawing thread has not taken the
+ * previous frame yet, that frame is dropped and its changes are carried
+ * into the new one. The view can also be told to show only every so
+ * many steps (see setRenderInterval), to watch a long run go by faster.
  * 
  * @author David J. Barnes, Michael Kölling and Nikita Lyakhovoy
  */
@@ -29,11 +46,29 @@ public class SimulatorView extends JFrame
     private JLabel stepLabel, population,timeOfDayLabel,weatherLabel;
     private FieldView fieldView;
     
-    // A map for storing colors for participants in the simulation
-    private Map<Class, Color> colors;
+    // The RGB color of each species code.
+    private int[] palette;
     // A statistics object computing and storing simulation information
     private FieldStats stats;
 
+    // Show only steps that are a multiple of this.
+    private int renderInterval;
+    // The positions changed since the last frame was handed over, one
+    // bit each, numbered row by row as the pixels are (see
+    // Field.positionOf), or every position if pendingAll is set.
+    private long[] pending;
+    private boolean pendingAll;
+    // Whether anything has happened since the last frame was handed over.
+    private boolean pendingFrame;
+    // The last status passed to showStatus.
+    private int lastStep;
+    private String lastTimeOfDay, lastWeather;
+    private Field lastField;
+    // The frame waiting to be drawn, or null.
+    private AtomicReference<Frame> nextFrame;
+    // The thread drawing the frames.
+    private Thread renderer;
+
     /**
      * Create a view of the given width and height.
      * @param height The simulation's height.
@@ -42,7 +77,13 @@ public class SimulatorView extends JFrame
     public SimulatorView(int height, int width)
     {
         stats = new FieldStats();
-        colors = new LinkedHashMap<>();
+        palette = new int[Species.UNKNOWN + 1];
+        Arrays.fill(palette, UNKNOWN_COLOR.getRGB());
+        palette[Species.EMPTY] = EMPTY_COLOR.getRGB();
+        renderInterval = 1;
+        pending = new long[(height * width + 63) / 64];
+        pendingAll = true;
+        nextFrame = new AtomicReference<>();
 
         setTitle("Fox and Rabbit Simulation");
         stepLabel = new JLabel(STEP_PREFIX, JLabel.CENTER);
@@ -68,67 +109,98 @@ public class SimulatorView extends JFrame
         contents.add(population, BorderLayout.SOUTH);
         pack();
         setVisible(true);
+
+        renderer = new Thread(this::render, "SimulatorView renderer");
+        renderer.setDaemon(true);
+        renderer.start();
     }
     
     /**
-     * Define a color to be used for a given class of animal.
-     * @param animalClass The animal's Class object.
-     * @param color The color to be used for the given class.
+     * Define a color to be used for a given species.
+     * Colors must be defined before the first status is shown.
+     * @param species The species.
+     * @param color The color to be used for the given species.
      */
-    public void setColor(Class animalClass, Color color)
+    public void setColor(Species species, Color color)
     {
-        colors.put(animalClass, color);
+        palette[species.getCode()] = color.getRGB();
     }
 
     /**
-     * @return The color to be used for a given class of animal.
+     * Show only the steps that are a multiple of the given number. The
+     * changes of the steps in between are still shown, with the next
+     * step that is. A reset, step 0, is always shown.
+     * @param steps The number of steps between frames. Must be at least 1.
      */
-    private Color getColor(Class animalClass)
+    public void setRenderInterval(int steps)
     {
-        Color col = colors.get(animalClass);
-        if(col == null) {
-            // no color defined for this class
-            return UNKNOWN_COLOR;
-        }
-        else {
-            return col;
+        if(steps < 1) {
+            throw new IllegalArgumentException("The render interval must be at least 1.");
         }
+        renderInterval = steps;
+    }
+
+    /**
+     * @return The number of steps between frames.
+     */
+    public int getRenderInterval()
+    {
+        return renderInterval;
     }
 
     /**
-     * Show the current status of the field.
+     * Show the current status of the field, if the step is one that is
+     * shown (see setRenderInterval). The field is drawn later by the
+     * view's own thread, so this returns without waiting for it.
      * @param step Which iteration step it is.
      * @param field The field whose status is to be displayed.
+     * @param changes The cells of the field that changed since the
+     *                last status was passed to the view.
      */
-    public void showStatus(int step,String timeOfDay, String weather, Field field)
+    public void showStatus(int step,String timeOfDay, String weather, Field field,
+                           ChangedCells changes)
     {
-        if(!isVisible()) {
-            setVisible(true);
+        if(changes.isAll()) {
+            pendingAll = true;
         }
-            
-        stepLabel.setText(STEP_PREFIX + step);
-        timeOfDayLabel.setText(TIMEOFDAY_PREFIX + timeOfDay);
-        weatherLabel.setText(WEATHER_PREFIX + weather);
-        stats.reset();
-        
-        fieldView.preparePaint();
-
-        for(int row = 0; row < field.getDepth(); row++) {
-            for(int col = 0; col < field.getWidth(); col++) {
-                Object animal = field.getObjectAt(row, col);
-                if(animal != null) {
-                    stats.incrementCount(animal.getClass());
-                    fieldView.drawMark(col, row, getColor(animal.getClass()));
-                }
-                else {
-                    fieldView.drawMark(col, row, EMPTY_COLOR);
-                }
+        else {
+            for(int i = 0; i < changes.size(); i++) {
+                int position = field.positionOf(changes.get(i));
+                pending[position >>> 6] |= 1L << position;
             }
         }
-        stats.countFinished();
+        pendingFrame = true;
+        lastStep = step;
+        lastTimeOfDay = timeOfDay;
+        lastWeather = weather;
+        lastField = field;
+        if(step % renderInterval == 0) {
+            showLatest();
+        }
+    }
 
-        population.setText(POPULATION_PREFIX + stats.getPopulationDetails(field));
-        fieldView.repaint();
+    /**
+     * Show the last status passed to showStatus, even if the step is
+     * not one that would be shown. This is used to show where a run
+     * stopped.
+     */
+    public void showLatest()
+    {
+        if(!pendingFrame) {
+            return;
+        }
+        // Take back a frame that has not been drawn yet, and carry its
+        // changes into the new one.
+        Frame dropped = nextFrame.getAndSet(null);
+        if(dropped != null) {
+            dropped.addCellsTo(this);
+        }
+        Frame frame = new Frame(this);
+        Arrays.fill(pending, 0);
+        pendingAll = false;
+        pendingFrame = false;
+        nextFrame.set(frame);
+        LockSupport.unpark(renderer);
     }
 
     /**
@@ -140,6 +212,122 @@ public class SimulatorView extends JFrame
         return stats.isViable(field);
     }
     
+    /**
+     * Draw each frame as it is handed over, until interrupted. This runs
+     * on the renderer thread. The pixels are written here, and only the
+     * labels and the painting are left to the Swing event thread.
+     */
+    private void render()
+    {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                Frame frame = nextFrame.getAndSet(null);
+                if(frame == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                fieldView.draw(frame);
+                SwingUtilities.invokeAndWait(() -> {
+                    if(!isVisible()) {
+                        setVisible(true);
+                    }
+                    stepLabel.setText(STEP_PREFIX + frame.step);
+                    timeOfDayLabel.setText(TIMEOFDAY_PREFIX + frame.timeOfDay);
+                    weatherLabel.setText(WEATHER_PREFIX + frame.weather);
+                    population.setText(POPULATION_PREFIX + frame.population);
+                    fieldView.paintImmediately(0, 0, fieldView.getWidth(),
+                                               fieldView.getHeight());
+                });
+            }
+        }
+        catch(InterruptedException e) {
+            // The view is no longer wanted.
+        }
+        catch(InvocationTargetException e) {
+            throw new IllegalStateException("Drawing the field failed.", e.getCause());
+        }
+    }
+
+    /**
+     * The status of the simulation at one step, as handed to the
+     * renderer thread: the labels, and the species codes of the cells
+     * changed since the previous frame. A frame does not change once
+     * it has been created.
+     */
+    private static class Frame
+    {
+        private final int step;
+        private final String timeOfDay, weather, population;
+        // The changed positions, numbered row by row, or null if every
+        // position is included.
+        private final int[] cells;
+        // The species code of each changed position, or of every position.
+        private final byte[] codes;
+
+        /**
+         * Create a frame of the view's last status and pending changes.
+         * @param view The view.
+         */
+        Frame(SimulatorView view)
+        {
+            Field field = view.lastField;
+            step = view.lastStep;
+            timeOfDay = view.lastTimeOfDay;
+            weather = view.lastWeather;
+            population = view.stats.getPopulationDetails(field);
+            if(view.pendingAll) {
+                // Only the allocated chunks of the field hold anything.
+                cells = null;
+                codes = new byte[field.getDepth() * field.getWidth()];
+                for(int chunk = field.nextChunk(0); chunk >= 0;
+                        chunk = field.nextChunk(chunk + 1)) {
+                    int end = (chunk + 1) * Field.CHUNK_CELLS;
+                    for(int cell = chunk * Field.CHUNK_CELLS; cell < end; cell++) {
+                        byte code = field.getSpeciesAt(cell);
+                        if(code != Species.EMPTY) {
+                            codes[field.positionOf(cell)] = code;
+                        }
+                    }
+                }
+            }
+            else {
+                int count = 0;
+                for(long bits : view.pending) {
+                    count += Long.bitCount(bits);
+                }
+                cells = new int[count];
+                codes = new byte[count];
+                int i = 0;
+                for(int element = 0; element < view.pending.length; element++) {
+                    long bits = view.pending[element];
+                    while(bits != 0) {
+                        int position = element * 64 + Long.numberOfTrailingZeros(bits);
+                        cells[i] = position;
+                        codes[i++] = field.getSpeciesAt(position / field.getWidth(),
+                                                        position % field.getWidth());
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Mark the cells of this frame as pending in the view.
+         * @param view The view.
+         */
+        void addCellsTo(SimulatorView view)
+        {
+            if(cells == null) {
+                view.pendingAll = true;
+            }
+            else {
+                for(int cell : cells) {
+                    view.pending[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
     /**
      * Provide a graphical view of a rectangular field. This is 
      * a nested class (a class defined inside a class) which
@@ -153,10 +341,10 @@ public class SimulatorView extends JFrame
         private final int GRID_VIEW_SCALING_FACTOR = 6;
 
         private int gridWidth, gridHeight;
-        private int xScale, yScale;
-        Dimension size;
-        private Graphics g;
-        private Image fieldImage;
+        // The field, with one pixel for each location.
+        private BufferedImage fieldImage;
+        // The pixels of fieldImage, row by row.
+        private int[] pixels;
 
         /**
          * Create a new FieldView component.
@@ -165,7 +353,9 @@ public class SimulatorView extends JFrame
         {
             gridHeight = height;
             gridWidth = width;
-            size = new Dimension(0, 0);
+            fieldImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) fieldImage.getRaster().getDataBuffer()).getData();
+            Arrays.fill(pixels, EMPTY_COLOR.getRGB());
         }
 
         /**
@@ -178,50 +368,59 @@ public class SimulatorView extends JFrame
         }
 
         /**
-         * Prepare for a new round of painting. Since the component
-         * may be resized, compute the scaling factor again.
+         * Write the cells of a frame into the field image. The changes
+         * show on the next repaint.
+         * @param frame The frame to draw.
          */
-        public void preparePaint()
+        public void draw(Frame frame)
         {
-            if(! size.equals(getSize())) {  // if the size has changed...
-                size = getSize();
-                fieldImage = fieldView.createImage(size.width, size.height);
-                g = fieldImage.getGraphics();
-
-                xScale = size.width / gridWidth;
-                if(xScale < 1) {
-                    xScale = GRID_VIEW_SCALING_FACTOR;
+            synchronized(fieldImage) {
+                if(frame.cells == null) {
+                    for(int cell = 0; cell < pixels.length; cell++) {
+                        pixels[cell] = palette[frame.codes[cell]];
+                    }
                 }
-                yScale = size.height / gridHeight;
-                if(yScale < 1) {
-                    yScale = GRID_VIEW_SCALING_FACTOR;
+                else {
+                    for(int i = 0; i < frame.cells.length; i++) {
+                        pixels[frame.cells[i]] = palette[frame.codes[i]];
+                    }
                 }
             }
         }
-        
-        /**
-         * Paint on grid location on this field in a given color.
-         */
-        public void drawMark(int x, int y, Color color)
-        {
-            g.setColor(color);
-            g.fillRect(x * xScale, y * yScale, xScale-1, yScale-1);
-        }
 
         /**
-         * The field view component needs to be redisplayed. Copy the
-         * internal image to screen.
+         * The field view component needs to be redisplayed. Scale the
+         * field image to fit and draw the gridlines over it.
          */
         public void paintComponent(Graphics g)
         {
-            if(fieldImage != null) {
-                Dimension currentSize = getSize();
-                if(size.equals(currentSize)) {
-                    g.drawImage(fieldImage, 0, 0, null);
+            Dimension size = getSize();
+            int xScale = size.width / gridWidth;
+            if(xScale < 1) {
+                xScale = GRID_VIEW_SCALING_FACTOR;
+            }
+            int yScale = size.height / gridHeight;
+            if(yScale < 1) {
+                yScale = GRID_VIEW_SCALING_FACTOR;
+            }
+            int imageWidth = gridWidth * xScale;
+            int imageHeight = gridHeight * yScale;
+
+            g.setColor(getBackground());
+            g.fillRect(0, 0, size.width, size.height);
+            synchronized(fieldImage) {
+                g.drawImage(fieldImage, 0, 0, imageWidth, imageHeight, null);
+            }
+            // Leave a line of background between locations, as long as
+            // that leaves something of each location to see.
+            if(xScale > 1) {
+                for(int x = xScale - 1; x < imageWidth; x += xScale) {
+                    g.fillRect(x, 0, 1, imageHeight);
                 }
-                else {
-                    // Rescale the previous image.
-                    g.drawImage(fieldImage, 0, 0, currentSize.width, currentSize.height, null);
+            }
+            if(yScale > 1) {
+                for(int y = yScale - 1; y < imageHeight; y += yScale) {
+                    g.fillRect(0, y, imageWidth, 1);
                 }
             }
         }
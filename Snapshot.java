@@ -0,0 +1,120 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves the complete state of a simulation to a compact binary file,
+ * and restores it. A restored simulation continues exactly as the
+ * original would have done.
+ *
+ * A snapshot starts with a magic number and a format version, followed
+ * by the state written by Simulator.writeState. All values are big
+ * endian. The file is written through a FileChannel in large blocks and
+ * read back by mapping it into memory, so even a field with millions of
+ * organisms is restored without repopulating it.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class Snapshot
+{
+    // The first four bytes of every snapshot: "SAVN".
+    private static final int MAGIC = 0x5341564E;
+    // The version of the format written.
+    private static final int VERSION = 9;
+    // The most bytes that a single record, such as one organism, takes.
+    static final int RECORD_SIZE = 256;
+    // The size of the block written at a time.
+    private static final int BLOCK_SIZE = 1 << 20;
+
+    // The file being written.
+    private FileChannel channel;
+    // The block being filled.
+    private ByteBuffer buffer;
+
+    /**
+     * Prepare to write a snapshot.
+     * @param channel The file to write to.
+     */
+    private Snapshot(FileChannel channel)
+    {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+    }
+
+    /**
+     * Save the state of a simulation. Any existing file is replaced.
+     * @param simulator The simulation to save.
+     * @param file The file to save it in.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void save(Simulator simulator, File file) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                                                   StandardOpenOption.CREATE,
+                                                   StandardOpenOption.TRUNCATE_EXISTING)) {
+            Snapshot snapshot = new Snapshot(channel);
+            snapshot.reserve(8).putInt(MAGIC).putInt(VERSION);
+            simulator.writeState(snapshot);
+            snapshot.flush();
+        }
+    }
+
+    /**
+     * Restore a simulation from a snapshot.
+     * @param file The file holding the snapshot.
+     * @param graphical Whether to create a SimulatorView.
+     * @return The restored simulation.
+     * @throws IOException If the file cannot be read or is not a valid snapshot.
+     */
+    public static Simulator load(File file, boolean graphical) throws IOException
+    {
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a simulation snapshot.");
+            }
+            int version = buffer.getInt();
+            if(version != VERSION) {
+                throw new IOException(file + " has unsupported snapshot version " + version);
+            }
+            try {
+                return Simulator.readState(buffer, graphical);
+            }
+            catch(BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException(file + " is damaged.", e);
+            }
+        }
+    }
+
+    /**
+     * Return the buffer to write the next record to, making sure it has
+     * room for the given number of bytes.
+     * @param bytes The size of the record. At most RECORD_SIZE.
+     * @return The buffer.
+     * @throws IOException If the file cannot be written.
+     */
+    ByteBuffer reserve(int bytes) throws IOException
+    {
+        if(buffer.remaining() < bytes) {
+            flush();
+        }
+        return buffer;
+    }
+
+    /**
+     * Write out everything in the buffer.
+     * @throws IOException If the file cannot be written.
+     */
+    private void flush() throws IOException
+    {
+        buffer.flip();
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
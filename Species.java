@@ -0,0 +1,87 @@
+/**
+ * The species that can occupy a location in the field.
+ * Each species has a small numeric code so that the field can store
+ * what occupies each location in a compact primitive array.
+ * There can be at most Field.MAX_SPECIES species, as the field packs
+ * the neighbour counts of every species into one long per cell.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public enum Species
+{
+    LEOPARD, CHEETAH, BOAR, IMPALA, RHINO, PLANT;
+
+    // The code stored for a location that holds nothing.
+    public static final byte EMPTY = 0;
+    // The code stored for an object that is not an organism.
+    public static final byte UNKNOWN = Byte.MAX_VALUE;
+
+    // All species, indexed by code - 1.
+    private static final Species[] VALUES = values();
+
+    // The code used for this species in the field.
+    private final byte code;
+
+    /**
+     * Codes start at one, leaving zero for empty locations.
+     */
+    private Species()
+    {
+        code = (byte) (ordinal() + 1);
+    }
+
+    /**
+     * @return The code used for this species in the field.
+     */
+    public byte getCode()
+    {
+        return code;
+    }
+
+    /**
+     * @return The name of the species, such as "Leopard".
+     */
+    public String getName()
+    {
+        return name().charAt(0) + name().substring(1).toLowerCase();
+    }
+
+    /**
+     * @return The characteristics of the species.
+     */
+    public SpeciesDefinition getDefinition()
+    {
+        return SpeciesDefinition.of(this);
+    }
+
+    /**
+     * Return the species with the given code.
+     * @param code A code stored in the field.
+     * @return The species, or null if the code is EMPTY or UNKNOWN.
+     */
+    public static Species fromCode(byte code)
+    {
+        if(code <= EMPTY || code > VALUES.length) {
+            return null;
+        }
+        return VALUES[code - 1];
+    }
+
+    /**
+     * Return the code to store in the field for the given object.
+     * @param object An object placed in the field, or null.
+     * @return The code for the object's species.
+     */
+    public static byte codeOf(Object object)
+    {
+        if(object == null) {
+            return EMPTY;
+        }
+        else if(object instanceof Organism) {
+            return ((Organism) object).getSpecies().getCode();
+        }
+        else {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/**
+ * The characteristics of a species, held as data so that every animal
+ * species can be run by the same code (see Animal) and every engine
+ * reads the same rules.
+ *
+ * The definitions of all species are listed together at the top of
+ * this class, one to a species. A new species needs a constant in
+ * Species and a definition here.
+ *
+ * How species meet is held as bit masks indexed by species code: each
+ * definition has a mask of the codes it eats, and one mask holds the
+ * codes an animal may move into (empty cells and plants); every other
+ * code blocks movement. A check is then one shift and test of the code
+ * stored in the field. Shifts of an int only use the low five bits of
+ * the code, so Species.UNKNOWN reads bit 31, which is never set: there
+ * are far fewer than 31 species.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class SpeciesDefinition
+{
+    // The definition of each species, by ordinal.
+    private static final SpeciesDefinition[] DEFINITIONS = new SpeciesDefinition[Species.values().length];
+    // The codes an animal may move into, one bit per species code.
+    private static int freeCodes = 1 << Species.EMPTY;
+
+    static {
+        // Animals:   species, creation probability,
+        //            breeding age, max age, breeding probability, max litter size,
+        //            food value, drought death limits for each severity,
+        //            active times of day, active weather, diet.
+        define(animal(Species.LEOPARD, 0.02,
+                      15, 90, 0.17, 2,
+                      24, new int[] {2, 4, 9},
+                      new TimeOfDay[] {TimeOfDay.NIGHT, TimeOfDay.EVENING},
+                      new WeatherType[] {WeatherType.CLEAR, WeatherType.CLOUDY, WeatherType.FOG},
+                      Species.BOAR, Species.IMPALA, Species.RHINO));
+        define(animal(Species.CHEETAH, 0.02,
+                      15, 85, 0.18, 2,
+                      23, new int[] {2, 6, 11},
+                      new TimeOfDay[] {TimeOfDay.NIGHT, TimeOfDay.EVENING},
+                      new WeatherType[] {WeatherType.CLEAR, WeatherType.CLOUDY, WeatherType.RAIN},
+                      Species.BOAR, Species.IMPALA, Species.RHINO));
+        define(animal(Species.BOAR, 0.08,
+                      5, 40, 0.10, 3,
+                      15, new int[] {7, 9, 13},
+                      new TimeOfDay[] {TimeOfDay.DAY, TimeOfDay.EVENING},
+                      new WeatherType[] {WeatherType.CLEAR, WeatherType.CLOUDY, WeatherType.RAIN,
+                                         WeatherType.FOG},
+                      Species.PLANT));
+        define(animal(Species.IMPALA, 0.07,
+                      10, 70, 0.20, 1,
+                      17, new int[] {6, 9, 11},
+                      new TimeOfDay[] {TimeOfDay.DAY, TimeOfDay.EVENING},
+                      new WeatherType[] {WeatherType.CLEAR, WeatherType.CLOUDY, WeatherType.FOG},
+                      Species.PLANT));
+        define(animal(Species.RHINO, 0.09,
+                      20, 80, 0.30, 1,
+                      24, new int[] {10, 14, 17},
+                      new TimeOfDay[] {TimeOfDay.MORNING, TimeOfDay.DAY},
+                      new WeatherType[] {WeatherType.CLEAR, WeatherType.CLOUDY, WeatherType.RAIN},
+                      Species.PLANT));
+        // Plants:    species, creation probability,
+        //            pollination age, max age, pollination probability,
+        //            max offspring, drought death limits for each severity,
+        //            times of day at which they reproduce.
+        define(plant(Species.PLANT, 0.60,
+                     5, 30, 0.70, 4,
+                     new int[] {3, 9, 18},
+                     new TimeOfDay[] {TimeOfDay.MORNING, TimeOfDay.DAY}));
+    }
+
+    // The species defined.
+    private final Species species;
+    // Whether the species is an animal, rather than a plant.
+    private final boolean animal;
+    // The usual probability of placing the species in a cell when
+    // populating, unless the simulation's Parameters say otherwise.
+    private final double creationProbability;
+    // The age at which it can start to breed.
+    private final int breedingAge;
+    // The age to which it can live.
+    private final int maxAge;
+    // The usual likelihood of it breeding.
+    private final double breedingProbability;
+    // The maximum number of births at once.
+    private final int maxLitterSize;
+    // The usual number of steps an animal can go without eating.
+    // Zero for plants.
+    private final int foodValue;
+    // The highest roll out of 100 on which it dies on a drought step,
+    // for each drought severity (see Weather.getDroughtSeverity).
+    private final int[] droughtDeathLimits;
+    // The times of day at which it is active.
+    private final TimeOfDay[] activeTimes;
+    // The weather in which it is active, or null if the weather makes
+    // no difference.
+    private final WeatherType[] activeWeather;
+    // The species it eats, one bit per species code.
+    private final int diet;
+
+    /**
+     * Create a definition.
+     */
+    private SpeciesDefinition(Species species, boolean animal, double creationProbability,
+                              int breedingAge, int maxAge, double breedingProbability,
+                              int maxLitterSize, int foodValue, int[] droughtDeathLimits,
+                              TimeOfDay[] activeTimes, WeatherType[] activeWeather,
+                              Species[] prey)
+    {
+        this.species = species;
+        this.animal = animal;
+        this.creationProbability = creationProbability;
+        this.breedingAge = breedingAge;
+        this.maxAge = maxAge;
+        this.breedingProbability = breedingProbability;
+        this.maxLitterSize = maxLitterSize;
+        this.foodValue = foodValue;
+        this.droughtDeathLimits = droughtDeathLimits.clone();
+        this.activeTimes = activeTimes.clone();
+        this.activeWeather = activeWeather == null ? null : activeWeather.clone();
+        int mask = 0;
+        for(Species eaten : prey) {
+            mask |= 1 << eaten.getCode();
+        }
+        diet = mask;
+    }
+
+    /**
+     * Define an animal species. Animals age, go hungry, find a mate of
+     * the other gender to breed, and move and hunt while active.
+     */
+    private static SpeciesDefinition animal(Species species, double creationProbability,
+                                            int breedingAge, int maxAge,
+                                            double breedingProbability, int maxLitterSize,
+                                            int foodValue, int[] droughtDeathLimits,
+                                            TimeOfDay[] activeTimes,
+                                            WeatherType[] activeWeather, Species... prey)
+    {
+        return new SpeciesDefinition(species, true, creationProbability, breedingAge, maxAge,
+                                     breedingProbability, maxLitterSize, foodValue,
+                                     droughtDeathLimits, activeTimes, activeWeather, prey);
+    }
+
+    /**
+     * Define a plant species. Plants age, never move, and spread into
+     * the free cells around them while active, whatever the weather.
+     */
+    private static SpeciesDefinition plant(Species species, double creationProbability,
+                                           int pollinationAge, int maxAge,
+                                           double pollinationProbability, int maxOffspring,
+                                           int[] droughtDeathLimits, TimeOfDay[] activeTimes)
+    {
+        return new SpeciesDefinition(species, false, creationProbability, pollinationAge,
+                                     maxAge, pollinationProbability, maxOffspring, 0,
+                                     droughtDeathLimits, activeTimes, null, new Species[0]);
+    }
+
+    /**
+     * Record a definition as that of its species.
+     * @param definition The definition.
+     */
+    private static void define(SpeciesDefinition definition)
+    {
+        DEFINITIONS[definition.species.ordinal()] = definition;
+        if(!definition.animal) {
+            freeCodes |= 1 << definition.species.getCode();
+        }
+    }
+
+    /**
+     * Return the definition of a species.
+     * @param species The species.
+     * @return Its definition.
+     */
+    public static SpeciesDefinition of(Species species)
+    {
+        return DEFINITIONS[species.ordinal()];
+    }
+
+    /**
+     * Check whether an animal may move into a cell holding the given
+     * code. Empty cells and plants are free; animals block movement.
+     * @param code A species code, as stored in the field.
+     * @return true if the code counts as free.
+     */
+    public static boolean isFree(byte code)
+    {
+        return (freeCodes >>> code & 1) != 0;
+    }
+
+    /**
+     * @return The species defined.
+     */
+    public Species getSpecies()
+    {
+        return species;
+    }
+
+    /**
+     * @return true if the species is an animal, false if it is a plant.
+     */
+    public boolean isAnimal()
+    {
+        return animal;
+    }
+
+    /**
+     * @return The usual probability of placing the species in a cell
+     *         when the field is populated.
+     */
+    public double getCreationProbability()
+    {
+        return creationProbability;
+    }
+
+    /**
+     * @return The age at which it can start to breed, or for plants
+     *         to pollinate.
+     */
+    public int getBreedingAge()
+    {
+        return breedingAge;
+    }
+
+    /**
+     * @return The age to which it can live.
+     */
+    public int getMaxAge()
+    {
+        return maxAge;
+    }
+
+    /**
+     * @return The usual likelihood of it breeding, or for plants
+     *         pollinating, once it is old enough.
+     */
+    public double getBreedingProbability()
+    {
+        return breedingProbability;
+    }
+
+    /**
+     * @return The maximum number of births, or for plants offspring,
+     *         at once.
+     */
+    public int getMaxLitterSize()
+    {
+        return maxLitterSize;
+    }
+
+    /**
+     * @return The usual number of steps an animal can go without
+     *         eating, or 0 for plants.
+     */
+    public int getFoodValue()
+    {
+        return foodValue;
+    }
+
+    /**
+     * @param severity A drought severity (see Weather.getDroughtSeverity).
+     * @return The highest roll out of 100 on which it dies on a step of
+     *         a drought of that severity.
+     */
+    public int getDroughtDeathLimit(int severity)
+    {
+        return droughtDeathLimits[severity];
+    }
+
+    /**
+     * @param time A time of day.
+     * @return true if it is active at that time of day.
+     */
+    public boolean isActiveAt(TimeOfDay time)
+    {
+        for(TimeOfDay active : activeTimes) {
+            if(active == time) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param type A type of weather.
+     * @return true if it is active in that weather. Plants are active
+     *         in any weather.
+     */
+    public boolean isActiveIn(WeatherType type)
+    {
+        if(activeWeather == null) {
+            return true;
+        }
+        for(WeatherType active : activeWeather) {
+            if(active == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the weather makes no difference to it.
+     */
+    public boolean isActiveInAnyWeather()
+    {
+        return activeWeather == null;
+    }
+
+    /**
+     * @return The species it eats, as a mask with the bit
+     *         1 << code set for each species code it eats.
+     */
+    public int getDiet()
+    {
+        return diet;
+    }
+
+    /**
+     * @param code A species code, as stored in the field.
+     * @return true if it eats the species with that code.
+     */
+    public boolean eats(byte code)
+    {
+        return (diet >>> code & 1) != 0;
+    }
+}
@@ -0,0 +1,344 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes a summary of every step to a file, as CSV or in a compact
+ * binary format, without slowing the simulation down.
+ *
+ * The simulation's thread only copies each summary into a ring buffer
+ * of ints. A background thread takes the summaries out in batches and
+ * writes them. There is one thread putting summaries in and one taking
+ * them out, so no lock is needed: each side publishes how far it has
+ * got with an ordered write of a counter. The simulation only waits if
+ * the writer falls a whole ring behind.
+ *
+ * Each summary is a row of columns: the step, the time of day, the
+ * weather, whether there was a drought, and the population, births and
+ * deaths of each species. In CSV the time of day and weather are
+ * written as names. The binary format starts with a header:
+ *   int magic "SAVS", int version,
+ *   int column count, then each column name,
+ *   int time of day count, then each time of day name,
+ *   int weather count, then each weather name,
+ * where each name is a short length followed by UTF-8 bytes. Blocks
+ * of rows follow, each an int row count and then, column by column,
+ * one int per row. All values are big endian.
+ *
+ * close must be called to write the last summaries.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class StepExporter implements StepOutput, AutoCloseable
+{
+    /**
+     * The file formats an exporter can write.
+     */
+    public enum Format
+    {
+        CSV, BINARY
+    }
+
+    // The first four bytes of a binary export: "SAVS".
+    private static final int MAGIC = 0x53415653;
+    // The version of the binary format written.
+    private static final int VERSION = 1;
+    // The number of summaries the ring holds. Must be a power of two.
+    private static final int CAPACITY = 1 << 14;
+    // The most summaries written at a time.
+    private static final int BATCH = 4096;
+    // How long either thread sleeps while waiting for the other.
+    private static final long PAUSE_NANOS = 1_000_000;
+    // The columns before the species columns.
+    private static final int FIXED_COLUMNS = 4;
+    // All species, by ordinal.
+    private static final Species[] SPECIES = Species.values();
+    // The times of day and types of weather, by ordinal.
+    private static final TimeOfDay[] TIMES = TimeOfDay.values();
+    private static final WeatherType[] WEATHER = WeatherType.values();
+
+    // The summaries, one row of columns after another.
+    private int[] ring;
+    // The number of columns in a row.
+    private int columns;
+    // The number of summaries put in, and taken out, since the start.
+    private AtomicLong added;
+    private AtomicLong taken;
+    // Set once no more summaries will be added.
+    private volatile boolean closing;
+    // Why writing failed, or null if it has not.
+    private volatile IOException failure;
+    // The format, and the file being written.
+    private Format format;
+    private BufferedWriter csv;
+    private FileChannel channel;
+    // The block of the binary format being filled.
+    private ByteBuffer block;
+    // The thread writing the file.
+    private Thread writer;
+
+    /**
+     * Create an exporter writing to the given file, which is replaced
+     * if it exists.
+     * @param file The file to write.
+     * @param format The format to write it in.
+     * @throws IOException If the file cannot be created.
+     */
+    public StepExporter(File file, Format format) throws IOException
+    {
+        this.format = format;
+        columns = FIXED_COLUMNS + 3 * Species.values().length;
+        ring = new int[CAPACITY * columns];
+        added = new AtomicLong();
+        taken = new AtomicLong();
+        if(format == Format.CSV) {
+            csv = new BufferedWriter(new FileWriter(file));
+            writeCsvHeader();
+        }
+        else {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE,
+                                       StandardOpenOption.CREATE,
+                                       StandardOpenOption.TRUNCATE_EXISTING);
+            block = ByteBuffer.allocate(4 + 4 * BATCH * columns);
+            writeBinaryHeader();
+        }
+        writer = new Thread(this::drain, "StepExporter " + file.getName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Copy a summary into the ring. If writing has failed, the summary
+     * is dropped and the failure is reported by close.
+     * @param summary The summary of the step.
+     */
+    public void stepped(StepSummary summary)
+    {
+        if(closing) {
+            return;
+        }
+        long next = added.get();
+        while(next - taken.get() >= CAPACITY) {
+            if(failure != null) {
+                return;
+            }
+            LockSupport.parkNanos(PAUSE_NANOS);
+        }
+        int at = (int) (next & (CAPACITY - 1)) * columns;
+        ring[at++] = summary.getStep();
+        ring[at++] = summary.getTimeOfDay();
+        ring[at++] = summary.getWeather();
+        ring[at++] = summary.isDrought() ? 1 : 0;
+        for(Species species : SPECIES) {
+            ring[at++] = summary.getPopulation(species);
+            ring[at++] = summary.getBirths(species);
+            ring[at++] = summary.getDeaths(species);
+        }
+        added.lazySet(next + 1);
+    }
+
+    /**
+     * Write the remaining summaries and close the file. Summaries added
+     * afterwards are ignored.
+     * @throws IOException If the file could not be written.
+     */
+    public void close() throws IOException
+    {
+        closing = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while(writer.isAlive()) {
+            try {
+                writer.join();
+            }
+            catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if(failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Take summaries out of the ring and write them until the exporter
+     * is closed. This runs on the writer thread.
+     */
+    private void drain()
+    {
+        try {
+            long next = 0;
+            while(true) {
+                long available = added.get();
+                if(available == next) {
+                    // Check closing before looking again, so that nothing
+                    // added before close is missed.
+                    if(closing && added.get() == next) {
+                        break;
+                    }
+                    LockSupport.parkNanos(PAUSE_NANOS);
+                    continue;
+                }
+                long end = Math.min(available, next + BATCH);
+                if(format == Format.CSV) {
+                    writeCsv(next, end);
+                }
+                else {
+                    writeBinary(next, end);
+                }
+                next = end;
+                taken.lazySet(next);
+            }
+        }
+        catch(IOException e) {
+            failure = e;
+        }
+        finally {
+            try {
+                if(csv != null) {
+                    csv.close();
+                }
+                if(channel != null) {
+                    channel.close();
+                }
+            }
+            catch(IOException e) {
+                if(failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The name of each column.
+     */
+    private List<String> columnNames()
+    {
+        List<String> names = new ArrayList<>(columns);
+        names.add("step");
+        names.add("time of day");
+        names.add("weather");
+        names.add("drought");
+        for(Species species : SPECIES) {
+            names.add(species.getName());
+            names.add(species.getName() + " births");
+            names.add(species.getName() + " deaths");
+        }
+        return names;
+    }
+
+    /**
+     * Write the CSV column names.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeCsvHeader() throws IOException
+    {
+        csv.write(String.join(",", columnNames()));
+        csv.newLine();
+    }
+
+    /**
+     * Write summaries as CSV rows.
+     * @param from The first summary to write.
+     * @param to One past the last summary to write.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeCsv(long from, long to) throws IOException
+    {
+        StringBuilder row = new StringBuilder();
+        for(long summary = from; summary < to; summary++) {
+            int at = (int) (summary & (CAPACITY - 1)) * columns;
+            row.setLength(0);
+            row.append(ring[at]).append(',')
+               .append(TIMES[ring[at + 1]].getName()).append(',')
+               .append(WEATHER[ring[at + 2]].getName()).append(',')
+               .append(ring[at + 3] != 0);
+            for(int column = FIXED_COLUMNS; column < columns; column++) {
+                row.append(',').append(ring[at + column]);
+            }
+            csv.write(row.toString());
+            csv.newLine();
+        }
+    }
+
+    /**
+     * Write the header of the binary format.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeBinaryHeader() throws IOException
+    {
+        ByteBuffer header = ByteBuffer.allocate(64 * 1024);
+        header.putInt(MAGIC).putInt(VERSION);
+        List<String> names = columnNames();
+        header.putInt(names.size());
+        for(String name : names) {
+            putString(header, name);
+        }
+        header.putInt(TIMES.length);
+        for(TimeOfDay time : TIMES) {
+            putString(header, time.getName());
+        }
+        header.putInt(WEATHER.length);
+        for(WeatherType type : WEATHER) {
+            putString(header, type.getName());
+        }
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * Write a string as its length followed by its UTF-8 bytes.
+     * @param buffer Receives the string.
+     * @param text The string, of at most Short.MAX_VALUE bytes.
+     */
+    private static void putString(ByteBuffer buffer, String text)
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Write summaries as one block of the binary format.
+     * @param from The first summary to write.
+     * @param to One past the last summary to write.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeBinary(long from, long to) throws IOException
+    {
+        block.clear();
+        block.putInt((int) (to - from));
+        for(int column = 0; column < columns; column++) {
+            for(long summary = from; summary < to; summary++) {
+                block.putInt(ring[(int) (summary & (CAPACITY - 1)) * columns + column]);
+            }
+        }
+        block.flip();
+        writeFully(block);
+    }
+
+    /**
+     * Write everything in a buffer to the binary file.
+     * @param buffer The bytes to write.
+     * @throws IOException If the file cannot be written.
+     */
+    private void writeFully(ByteBuffer buffer) throws IOException
+    {
+        while(buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * Receives a summary of the simulation after every step, for example
+ * to record it. Outputs are called on the thread running the
+ * simulation, so they should return quickly.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public interface StepOutput
+{
+    /**
+     * Record the state of the simulation after a step. The summary is
+     * reused for the next step, so anything needed later must be copied.
+     * @param summary The summary of the step.
+     */
+    void stepped(StepSummary summary);
+}
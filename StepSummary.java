@@ -0,0 +1,168 @@
+/**
+ * What happened in one step of a simulation: the populations at the
+ * end of the step, how many organisms of each species were born and
+ * died during it, the time of day and weather it ran in, and which
+ * cells of the field changed.
+ *
+ * A Simulator keeps a single summary and updates it after every step.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class StepSummary
+{
+    // All species, by ordinal.
+    private static final Species[] SPECIES = Species.values();
+
+    // The number of the step.
+    private int step;
+    // The time of day, as a TimeOfDay ordinal.
+    private int timeOfDay;
+    // The weather, as a WeatherType ordinal.
+    private int weather;
+    // Whether there was a drought.
+    private boolean drought;
+    // The population, births and deaths of each species, by ordinal.
+    private int[] populations;
+    private int[] births;
+    private int[] deaths;
+    // The cells whose species changed during the step.
+    private ChangedCells changes;
+
+    /**
+     * Create an empty summary.
+     */
+    public StepSummary()
+    {
+        int species = Species.values().length;
+        populations = new int[species];
+        births = new int[species];
+        deaths = new int[species];
+        changes = new ChangedCells();
+    }
+
+    /**
+     * Update the summary for a step. Deaths are worked out from the
+     * change in population: an organism that was born and died in the
+     * same step counts as both.
+     * @param step The number of the step.
+     * @param time The time of day.
+     * @param weather The weather.
+     * @param field The field at the end of the step.
+     * @param born The number of births of each species, by ordinal.
+     */
+    void update(int step, Time time, Weather weather, Field field, int[] born)
+    {
+        setConditions(step, time, weather);
+        for(Species species : SPECIES) {
+            int i = species.ordinal();
+            int population = field.getCount(species);
+            births[i] = born[i];
+            deaths[i] = Math.max(0, populations[i] + born[i] - population);
+            populations[i] = population;
+        }
+        field.takeChanges(changes);
+    }
+
+    /**
+     * Start again from a newly populated field, with no births or deaths.
+     * @param step The number of the step.
+     * @param time The time of day.
+     * @param weather The weather.
+     * @param field The populated field.
+     */
+    void reset(int step, Time time, Weather weather, Field field)
+    {
+        setConditions(step, time, weather);
+        for(Species species : SPECIES) {
+            int i = species.ordinal();
+            populations[i] = field.getCount(species);
+            births[i] = 0;
+            deaths[i] = 0;
+        }
+        field.takeChanges(changes);
+    }
+
+    /**
+     * @return The number of the step.
+     */
+    public int getStep()
+    {
+        return step;
+    }
+
+    /**
+     * @return The time of day, as a TimeOfDay ordinal.
+     */
+    public int getTimeOfDay()
+    {
+        return timeOfDay;
+    }
+
+    /**
+     * @return The weather, as a WeatherType ordinal.
+     */
+    public int getWeather()
+    {
+        return weather;
+    }
+
+    /**
+     * @return Whether there was a drought.
+     */
+    public boolean isDrought()
+    {
+        return drought;
+    }
+
+    /**
+     * @param species A species.
+     * @return Its population at the end of the step.
+     */
+    public int getPopulation(Species species)
+    {
+        return populations[species.ordinal()];
+    }
+
+    /**
+     * @param species A species.
+     * @return The number born during the step.
+     */
+    public int getBirths(Species species)
+    {
+        return births[species.ordinal()];
+    }
+
+    /**
+     * @param species A species.
+     * @return The number that died during the step.
+     */
+    public int getDeaths(Species species)
+    {
+        return deaths[species.ordinal()];
+    }
+
+    /**
+     * Return the cells whose species changed during the step. After a
+     * reset every cell has changed. The list is reused for the next
+     * step, so it must not be kept.
+     * @return The changed cells.
+     */
+    public ChangedCells getChangedCells()
+    {
+        return changes;
+    }
+
+    /**
+     * Record the step number, time of day and weather.
+     * @param step The number of the step.
+     * @param time The time of day.
+     * @param weather The weather.
+     */
+    private void setConditions(int step, Time time, Weather weather)
+    {
+        this.step = step;
+        timeOfDay = time.getState().ordinal();
+        this.weather = weather.getType().ordinal();
+        drought = weather.getIsDrought();
+    }
+}
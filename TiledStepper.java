@@ -0,0 +1,343 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Steps the organisms and plants of a field, on one or more threads.
+ *
+ * The tiles stepped are the chunks of the field (see Field), and each
+ * tile is given one of four colours in a 2x2 checkerboard pattern. A
+ * step runs in four phases, one per colour. Within a phase the tiles
+ * are processed concurrently: two tiles of the same colour are at least
+ * a whole tile apart, and an organism only ever touches the cells next
+ * to the one it started the step in, and the neighbours its young wake
+ * are at most two cells from it, so no cell is touched by two threads
+ * at once. In each tile the organisms act first, then the
+ * plants of the tile's cells are swept (see GrassLayer). Only the
+ * tiles whose chunk is allocated at the start of the step hold
+ * anything, so only they are stepped, and a mostly empty field costs
+ * little to step however large it is.
+ *
+ * Only the organisms due at the step are stepped (see TimingWheel).
+ * An organism born next to a sleeping animal of its species may be the
+ * mate it lacked, so the animal is woken to act on the next step.
+ *
+ * Each organism's random stream is reseeded from its id before it acts,
+ * and each plant's from its position, and the organisms are filed back
+ * into the wheel in tile order, so the results are the same whatever
+ * the number of threads.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class TiledStepper
+{
+    // The number of colours in the checkerboard.
+    private static final int COLOURS = 4;
+    // Added to a tile's index to key its drought sampler, apart from the
+    // ids and positions that key organisms and plants.
+    private static final long DROUGHT_KEY = Long.MIN_VALUE;
+
+    // The field being stepped.
+    private Field field;
+    // The plants of the field.
+    private GrassLayer grass;
+    // The tiles stepped in the current step, in increasing order.
+    private int[] active;
+    // The number of tiles stepped in the current step.
+    private int activeCount;
+    // The index within active of each tile, during a step.
+    private int[] indexOf;
+    // The indices within active of the tiles of each colour, and how many there are.
+    private int[][] byColour;
+    private int[] colourCounts;
+    // The organisms due in each active tile, by their cell at the start of the step.
+    private List<List<Organism>> residents;
+    // The organisms born in each active tile during the step.
+    private List<List<Organism>> births;
+    // The sleeping organisms woken by births in each active tile.
+    private List<List<Organism>> woken;
+    // The number of plants that sprouted in each active tile during the step.
+    private int[] sprouted;
+    // The number of organisms of each species born in the last step, by ordinal.
+    private int[] born;
+    // The threads the tiles are processed on, or null to use the caller's thread.
+    private ForkJoinPool pool;
+    // The source of each organism's random stream.
+    private Randomizer randomizer;
+
+    // A buffer for the plants' neighbourhood queries, for each thread.
+    private static final ThreadLocal<Neighbourhood> neighbours =
+        ThreadLocal.withInitial(Neighbourhood::new);
+    // The sampler of drought deaths, for each thread.
+    private static final ThreadLocal<DroughtSampler> samplers =
+        ThreadLocal.withInitial(DroughtSampler::new);
+
+    // The conditions for the step currently being run.
+    private int step;
+    private ActivityTable activity;
+
+    /**
+     * Create a stepper for the given field.
+     * @param field The field whose organisms are stepped.
+     * @param grass The plants of the field.
+     * @param threads The number of threads to use. Must be at least 1.
+     * @param randomizer The source of each organism's random stream.
+     */
+    public TiledStepper(Field field, GrassLayer grass, int threads, Randomizer randomizer)
+    {
+        if(threads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed.");
+        }
+        this.field = field;
+        this.grass = grass;
+        this.randomizer = randomizer;
+        active = new int[16];
+        indexOf = new int[field.getChunkCount()];
+        byColour = new int[COLOURS][16];
+        colourCounts = new int[COLOURS];
+        residents = new ArrayList<>();
+        births = new ArrayList<>();
+        woken = new ArrayList<>();
+        sprouted = new int[16];
+        born = new int[Species.values().length];
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    /**
+     * Let every organism due at the step act once, and every plant.
+     * The organisms that survive and those born are filed in the wheel
+     * again under their wake steps.
+     * @param wheel The organisms of the field, by wake step.
+     * @param step The number of the step.
+     * @param activity What the current time of day and weather mean
+     *                 for each species.
+     */
+    public void step(TimingWheel wheel, int step, ActivityTable activity)
+    {
+        this.step = step;
+        this.activity = activity;
+
+        findActiveTiles();
+        List<Organism> due = wheel.takeDue(step);
+        for(int i = 0; i < due.size(); i++) {
+            Organism organism = due.get(i);
+            residents.get(indexOf[field.chunkOf(organism.getCell())]).add(organism);
+        }
+
+        for(int colour = 0; colour < COLOURS; colour++) {
+            int[] tiles = byColour[colour];
+            if(pool == null) {
+                for(int i = 0; i < colourCounts[colour]; i++) {
+                    stepTile(tiles[i]);
+                }
+            }
+            else {
+                pool.invoke(new PhaseTask(tiles, 0, colourCounts[colour]));
+            }
+        }
+
+        // File the organisms in tile order so that the order in which
+        // they next act does not depend on which thread finished first.
+        Arrays.fill(born, 0);
+        for(int i = 0; i < activeCount; i++) {
+            born[Species.PLANT.ordinal()] += sprouted[i];
+            fileLiving(wheel, residents.get(i));
+            List<Organism> young = births.get(i);
+            for(int j = 0; j < young.size(); j++) {
+                born[young.get(j).getSpecies().ordinal()]++;
+            }
+            fileLiving(wheel, births.get(i));
+            fileLiving(wheel, woken.get(i));
+        }
+    }
+
+    /**
+     * File the live organisms of a list in the wheel, and clear the list.
+     * @param wheel The wheel.
+     * @param organisms The organisms.
+     */
+    private void fileLiving(TimingWheel wheel, List<Organism> organisms)
+    {
+        for(int i = 0; i < organisms.size(); i++) {
+            Organism organism = organisms.get(i);
+            if(organism.isAlive()) {
+                wheel.add(organism, step);
+            }
+        }
+        organisms.clear();
+    }
+
+    /**
+     * Return how many organisms of a species were born in the last step,
+     * including any that died in the same step.
+     * @param species The species.
+     * @return The number of births.
+     */
+    public int getBirths(Species species)
+    {
+        return born[species.ordinal()];
+    }
+
+    /**
+     * Stop the threads used by this stepper. It must not be used afterwards.
+     */
+    public void shutdown()
+    {
+        if(pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Find the tiles to step: those whose chunk is allocated. Make room
+     * for their residents, and sort them by colour.
+     */
+    private void findActiveTiles()
+    {
+        activeCount = 0;
+        Arrays.fill(colourCounts, 0);
+        for(int tile = field.nextChunk(0); tile >= 0; tile = field.nextChunk(tile + 1)) {
+            if(activeCount == active.length) {
+                active = Arrays.copyOf(active, activeCount * 2);
+                sprouted = Arrays.copyOf(sprouted, activeCount * 2);
+            }
+            if(activeCount == residents.size()) {
+                residents.add(new ArrayList<>());
+                births.add(new ArrayList<>());
+                woken.add(new ArrayList<>());
+            }
+            int colour = colourOf(tile);
+            if(colourCounts[colour] == byColour[colour].length) {
+                byColour[colour] = Arrays.copyOf(byColour[colour], colourCounts[colour] * 2);
+            }
+            byColour[colour][colourCounts[colour]++] = activeCount;
+            indexOf[tile] = activeCount;
+            active[activeCount++] = tile;
+        }
+    }
+
+    /**
+     * Let the organisms due that started the step in a tile act, then
+     * the plants in its cells. During a drought, one sampler picks
+     * which of the tile's organisms and plants die of it as their turn
+     * comes.
+     * @param index The tile's index within active.
+     */
+    private void stepTile(int index)
+    {
+        int tile = active[index];
+        DroughtSampler drought = samplers.get();
+        drought.start(randomizer, step, DROUGHT_KEY + tile, activity);
+        List<Organism> newOrganisms = births.get(index);
+        List<Organism> due = residents.get(index);
+        for(int i = 0; i < due.size(); i++) {
+            Organism organism = due.get(i);
+            if(!organism.isAlive()) {
+                continue;
+            }
+            // Old age and hunger come first; only the survivors are
+            // at risk of drought.
+            if(organism.hasReachedDeadline(step)) {
+                organism.setDead();
+                continue;
+            }
+            if(drought.dies(organism.getSpecies())) {
+                organism.setDead();
+                continue;
+            }
+            randomizer.reseed(step, organism.getId());
+            organism.act(newOrganisms, step, activity);
+        }
+        for(int i = 0; i < newOrganisms.size(); i++) {
+            Organism young = newOrganisms.get(i);
+            if(young.isAlive()) {
+                wakeNeighbours(young, woken.get(index));
+            }
+        }
+        int columns = field.getChunkColumns();
+        int top = (tile / columns) * Field.CHUNK_SIZE;
+        int left = (tile % columns) * Field.CHUNK_SIZE;
+        sprouted[index] = grass.step(top, left, Math.min(top + Field.CHUNK_SIZE, field.getDepth()),
+                                     Math.min(left + Field.CHUNK_SIZE, field.getWidth()),
+                                     step, activity, neighbours.get(), drought);
+    }
+
+    /**
+     * Wake the sleeping organisms of a newborn's species next to it, so
+     * that they act on the next step. Those due then already, including
+     * any still to act in this step, are left alone.
+     * @param young The newborn.
+     * @param woken Receives the organisms woken.
+     */
+    private void wakeNeighbours(Organism young, List<Organism> woken)
+    {
+        byte code = young.getSpecies().getCode();
+        if(field.countAdjacent(young.getCell(), 1 << code) == 0) {
+            return;
+        }
+        Neighbourhood adjacent = neighbours.get();
+        field.adjacentCells(young.getCell(), adjacent);
+        for(int i = 0; i < adjacent.size(); i++) {
+            int cell = adjacent.get(i);
+            if(field.getSpeciesAt(cell) == code) {
+                Organism neighbour = (Organism) field.getObjectAt(cell);
+                if(neighbour.getWakeStep() > step + 1) {
+                    neighbour.setWakeStep(step + 1);
+                    woken.add(neighbour);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the checkerboard colour of a tile.
+     * @param tile The tile index.
+     * @return A colour between 0 and COLOURS - 1.
+     */
+    private int colourOf(int tile)
+    {
+        int columns = field.getChunkColumns();
+        int tileRow = tile / columns;
+        int tileCol = tile % columns;
+        return (tileRow % 2) * 2 + tileCol % 2;
+    }
+
+    /**
+     * Processes a range of same-coloured tiles, splitting the range
+     * between threads.
+     */
+    private class PhaseTask extends RecursiveAction
+    {
+        // Tasks are never serialized, but RecursiveAction is Serializable.
+        private static final long serialVersionUID = 1L;
+
+        private int[] tiles;
+        private int from, to;
+
+        /**
+         * @param tiles The indices within active of the tiles of one colour.
+         * @param from The first tile to process.
+         * @param to One past the last tile to process.
+         */
+        PhaseTask(int[] tiles, int from, int to)
+        {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute()
+        {
+            if(to - from == 1) {
+                stepTile(tiles[from]);
+            }
+            else if(to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PhaseTask(tiles, from, middle),
+                          new PhaseTask(tiles, middle, to));
+            }
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import java.nio.ByteBuffer;
 
 /**
  * Time class stores the current time of day.
@@ -6,42 +7,69 @@
  */
 public class Time
 {
-    // an array with all possible states of  time
-    private String[] statesOfTime = {"Morning", "Day", "Evening", "Night"};
+    // The number of steps each time of day lasts.
+    public static final int STEPS_PER_TIME_OF_DAY = 3;
+    // The number of steps in a day. The weather changes once a day.
+    public static final int STEPS_PER_DAY = STEPS_PER_TIME_OF_DAY * TimeOfDay.values().length;
+
     //current time of day
-    private int timeOfDay;
+    private TimeOfDay timeOfDay;
 
     /**
      * Constructor for objects of class Time
      */
     public Time()
     {
-        timeOfDay = 0;
+        timeOfDay = TimeOfDay.MORNING;
     }
 
     /**
      * Method to get the current timeOfDay;
      */
     public String getTimeOfDay() {
-        return statesOfTime[timeOfDay];
+        return timeOfDay.getName();
+    }
+
+    /**
+     * @return The current time of day.
+     */
+    public TimeOfDay getState() {
+        return timeOfDay;
     }
 
     /**
      * Method that switches time of day to the next state;
      */
     public void incrementTimeOfDay(){
-        if (timeOfDay < statesOfTime.length - 1){
-            timeOfDay++;
-        }
-        else if(timeOfDay == statesOfTime.length - 1){
-            timeOfDay = 0;
-        }
+        timeOfDay = timeOfDay.next();
     }
 
     /**
      * Resets timeOfDay to morning
      */
     public void reset(){
-        timeOfDay = 0;
+        timeOfDay = TimeOfDay.MORNING;
+    }
+
+    /**
+     * Write the time of day for a snapshot.
+     * @param buffer Receives the state.
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        buffer.putInt(timeOfDay.ordinal());
+    }
+
+    /**
+     * Read the time of day from a snapshot.
+     * @param buffer Holds the state written by writeState.
+     */
+    void readState(ByteBuffer buffer)
+    {
+        int index = buffer.getInt();
+        if(index < 0 || index >= TimeOfDay.values().length) {
+            throw new IllegalArgumentException("Invalid time of day: " + index);
+        }
+        timeOfDay = TimeOfDay.values()[index];
     }
 }
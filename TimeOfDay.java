@@ -0,0 +1,39 @@
+/**
+ * The times of day the simulation passes through, in order.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public enum TimeOfDay
+{
+    MORNING, DAY, EVENING, NIGHT;
+
+    // The times of day, in order.
+    private static final TimeOfDay[] TIMES = values();
+
+    // The name shown to the user, such as "Morning".
+    private final String name;
+
+    /**
+     * Work out the name once, as it is shown on every step.
+     */
+    private TimeOfDay()
+    {
+        name = name().charAt(0) + name().substring(1).toLowerCase();
+    }
+
+    /**
+     * @return The name of the time of day, such as "Morning".
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The time of day that follows this one.
+     */
+    public TimeOfDay next()
+    {
+        return TIMES[(ordinal() + 1) % TIMES.length];
+    }
+}
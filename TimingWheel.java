@@ -0,0 +1,126 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The organisms of a simulation, filed by the step at which each next
+ * has to act. An organism that has nothing to do on a step but age,
+ * such as an animal whose species is inactive, records a later wake
+ * step (see Organism.getWakeStep), so a step only touches the
+ * organisms that are due in it.
+ *
+ * The wheel has a slot for each of the next few steps. An organism is
+ * added to the slot of its wake step and taken out when that step
+ * comes. An organism's wake step may be brought forward after it has
+ * been added, for example when something happens next to it, by adding
+ * it again; the entry in the later slot is then out of date, and is
+ * dropped when its slot comes round, as are the entries of organisms
+ * that have died. An out of date entry can fall due again if the
+ * organism is later added under the same step, so only the last entry
+ * of each organism in a slot counts: the order in which organisms act
+ * then depends only on when each was last added, which is what a
+ * snapshot records (see getOrganisms). A wake step further ahead than
+ * the wheel reaches is brought forward to the last slot: acting early
+ * is always allowed, as an organism that acts on a step when it had
+ * nothing to do only ages.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class TimingWheel
+{
+    // The number of steps ahead that organisms can be filed for. The
+    // furthest an organism sleeps is to the next change of weather.
+    private static final int SLOTS = Time.STEPS_PER_DAY + 1;
+
+    // The organisms due at each step, in the slot step % SLOTS.
+    private List<List<Organism>> slots;
+    // The organisms taken out by takeDue.
+    private List<Organism> due;
+
+    /**
+     * Create an empty wheel.
+     */
+    public TimingWheel()
+    {
+        slots = new ArrayList<>();
+        for(int i = 0; i < SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+        due = new ArrayList<>();
+    }
+
+    /**
+     * File an organism under its wake step. A wake step that is not
+     * after the current step is taken as the next step.
+     * @param organism A live organism.
+     * @param step The current step.
+     */
+    public void add(Organism organism, int step)
+    {
+        int delay = Math.max(1, Math.min(organism.getWakeStep() - step, SLOTS - 1));
+        organism.setWakeStep(step + delay);
+        slots.get((step + delay) % SLOTS).add(organism);
+    }
+
+    /**
+     * Take out the live organisms due at a step, in the order in which
+     * they were last filed. Each is marked as due at the next step,
+     * which is when it acts again unless it sets a later wake step as
+     * it acts.
+     * @param step The step. Every earlier step must have been taken.
+     * @return The organisms, in a list that is reused by the next call.
+     */
+    public List<Organism> takeDue(int step)
+    {
+        due.clear();
+        List<Organism> slot = slots.get(step % SLOTS);
+        // Going backwards finds each organism's last entry first; the
+        // mark keeps its earlier ones from being taken.
+        for(int i = slot.size() - 1; i >= 0; i--) {
+            Organism organism = slot.get(i);
+            if(organism.isAlive() && organism.getWakeStep() == step) {
+                organism.setWakeStep(step + 1);
+                due.add(organism);
+            }
+        }
+        slot.clear();
+        Collections.reverse(due);
+        return due;
+    }
+
+    /**
+     * Return every live organism in the order in which it will next
+     * act: by wake step, then in the order last filed.
+     * @param step The current step.
+     * @return The organisms, in a new list.
+     */
+    public List<Organism> getOrganisms(int step)
+    {
+        List<Organism> organisms = new ArrayList<>();
+        Set<Organism> seen = new HashSet<>();
+        for(int wake = step + 1; wake < step + SLOTS; wake++) {
+            int start = organisms.size();
+            List<Organism> slot = slots.get(wake % SLOTS);
+            for(int i = slot.size() - 1; i >= 0; i--) {
+                Organism organism = slot.get(i);
+                if(organism.isAlive() && organism.getWakeStep() == wake && seen.add(organism)) {
+                    organisms.add(organism);
+                }
+            }
+            Collections.reverse(organisms.subList(start, organisms.size()));
+        }
+        return organisms;
+    }
+
+    /**
+     * Remove every organism.
+     */
+    public void clear()
+    {
+        for(List<Organism> slot : slots) {
+            slot.clear();
+        }
+    }
+}
@@ -1,5 +1,4 @@
-import java.util.ArrayList;
-import java.util.Random;
+import java.nio.ByteBuffer;
 
 /**
  * Weather class that represents the weather inside the simulation.
@@ -8,17 +7,15 @@ import java.util.Random;
  */
 public class Weather
 {
-    // an array with all the possible types of weather in the simulation
-    private String[] statesOfWeather = {"Clear","Heatwave","Fog","Cloudy", "Rain","Thunderstorm"};
-    //Stores the current state of weather
-    private String currentWeather;
+    // All the possible types of weather in the simulation.
+    private static final WeatherType[] TYPES = WeatherType.values();
+    //Stores the current type of weather
+    private WeatherType type;
     //Indicates where there isa drought or not at this point in time.
-    private Boolean IsDrought;
+    private boolean IsDrought;
     //Stores the number of days that have passed since the last rain occured
     private int daysSinceRain;
 
-    private static final Random rand = Randomizer.getRandom();
-
     /**
      * Constructor for objects of class Weather
      */
@@ -33,57 +30,36 @@ public class Weather
      */
     public void setRandomWeather()
     {
-        currentWeather = statesOfWeather[rand.nextInt(statesOfWeather.length - 1)];
-        if (currentWeather != "Rain" && currentWeather != "Thunderstorm" ){
+        type = TYPES[Randomizer.getRandom().nextInt(TYPES.length - 1)];
+        if (!type.isRain()){
             daysSinceRain++;
         }
 
         else{
             daysSinceRain = 0;
-            removeDrought();
         }
-        setIsDrought();
+        IsDrought = daysSinceRain > 7;
     }
 
     /**
-     * @return the current state of weather.
+     * @return the current state of weather, marked if there is a drought.
      */
     public String getCurrentWeather() {
-        return currentWeather;
-    }
-
-    private void setIsDrought(){
-
-        if (daysSinceRain > 7){
-            currentWeather = currentWeather + " (DROUGHT)";
-            IsDrought = true;
-        }
-        else if(daysSinceRain <= 7){
-            IsDrought = false;
-            removeDrought();
-
-        }
-
+        return IsDrought ? type.getDroughtName() : type.getName();
     }
 
     /**
-     * Removes the drought keyword from the current state of weather.
+     * @return The current type of weather, whether or not there is a
+     *         drought.
      */
-    private void removeDrought(){
-
-        String[] words = currentWeather.split(" ");
-        currentWeather = "";
-        for (String word:
-             words) {
-            if (word != "(DROUGHT)"){currentWeather = currentWeather + word;}
-        }
-
+    public WeatherType getType() {
+        return type;
     }
 
     /*
     *@return true if there is a drought at his point in time.
     */
-    public Boolean getIsDrought() {
+    public boolean getIsDrought() {
         return IsDrought;
     }
 
@@ -94,9 +70,50 @@ public class Weather
         return daysSinceRain;
     }
 
+    /**
+     * Rank how long it has been since the last rain: 0 for up to 6 days,
+     * 1 for up to 10 days and 2 for longer.
+     * @return The drought severity, between 0 and 2.
+     */
+    public int getDroughtSeverity() {
+        if (daysSinceRain <= 6){
+            return 0;
+        }
+        else if (daysSinceRain <= 10){
+            return 1;
+        }
+        return 2;
+    }
+
     public void reset(){
         IsDrought = false;
         daysSinceRain = 0;
-        currentWeather = statesOfWeather[rand.nextInt(statesOfWeather.length - 1)];
+        type = TYPES[Randomizer.getRandom().nextInt(TYPES.length - 1)];
+    }
+
+    /**
+     * Write the weather for a snapshot.
+     * @param buffer Receives the state.
+     */
+    void writeState(ByteBuffer buffer)
+    {
+        buffer.putInt(type.ordinal());
+        buffer.put((byte) (IsDrought ? 1 : 0));
+        buffer.putInt(daysSinceRain);
+    }
+
+    /**
+     * Read the weather from a snapshot.
+     * @param buffer Holds the state written by writeState.
+     */
+    void readState(ByteBuffer buffer)
+    {
+        int index = buffer.getInt();
+        if(index < 0 || index >= TYPES.length) {
+            throw new IllegalArgumentException("Invalid weather: " + index);
+        }
+        type = TYPES[index];
+        IsDrought = buffer.get() != 0;
+        daysSinceRain = buffer.getInt();
     }
 }
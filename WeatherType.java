@@ -0,0 +1,48 @@
+/**
+ * The kinds of weather the simulation can have.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public enum WeatherType
+{
+    CLEAR, HEATWAVE, FOG, CLOUDY, RAIN, THUNDERSTORM;
+
+    // The name shown to the user, such as "Clear", with and without a
+    // drought.
+    private final String name;
+    private final String droughtName;
+
+    /**
+     * Work out the names once, as they are shown on every step.
+     */
+    private WeatherType()
+    {
+        name = name().charAt(0) + name().substring(1).toLowerCase();
+        droughtName = name + " (DROUGHT)";
+    }
+
+    /**
+     * @return The name of the weather, such as "Clear".
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return The name of the weather during a drought, such as
+     *         "Clear (DROUGHT)".
+     */
+    public String getDroughtName()
+    {
+        return droughtName;
+    }
+
+    /**
+     * @return true if this weather brings rain, which ends a drought.
+     */
+    public boolean isRain()
+    {
+        return this == RAIN || this == THUNDERSTORM;
+    }
+}
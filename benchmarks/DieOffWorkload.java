@@ -0,0 +1,66 @@
+import java.util.function.Supplier;
+
+import bench.Workload;
+
+/**
+ * Stepping a field so packed with animals that most of them die within
+ * a few steps: once their species becomes active, those with no free
+ * cell to move into die of overcrowding, and the prey left behind
+ * cannot feed. The first steps after populating therefore remove most
+ * of a large population at once.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class DieOffWorkload implements Workload
+{
+    // The seed used for every run.
+    private static final long SEED = 1111;
+    // The factor applied to the creation probabilities, which leaves
+    // hardly a cell without an animal.
+    private static final double DENSITY = 10;
+
+    private Simulator simulator;
+
+    /**
+     * Create the simulation.
+     * @param size The depth and width of the field.
+     * @param engine "objects" to keep organisms as objects, or "arrays"
+     *               to use the array engine.
+     */
+    public DieOffWorkload(int size, String engine)
+    {
+        simulator = new Simulator(size, size, false, SEED);
+        switch(engine) {
+            case "objects":
+                break;
+            case "arrays":
+                simulator.setArrayEngine(true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+        simulator.setDensity(DENSITY);
+    }
+
+    /**
+     * Pack the field again, so that the steps that follow see the same
+     * die-off as last time.
+     */
+    public void prepare()
+    {
+        simulator.reset();
+    }
+
+    public Supplier<?> operation(String name)
+    {
+        switch(name) {
+            case "simulateOneStep":
+                return () -> {
+                    simulator.simulateOneStep();
+                    return simulator;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+import java.util.function.Supplier;
+
+import bench.Workload;
+
+/**
+ * The neighbourhood queries of a freshly populated field, both through
+ * the Location methods and through the cell methods that fill a reused
+ * Neighbourhood. Each operation queries the next of a fixed sample of
+ * cells.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class FieldWorkload implements Workload
+{
+    // The size of the field.
+    private static final int SIZE = 200;
+    // The number of cells queried in turn. Must be a power of two.
+    private static final int SAMPLES = 4096;
+    // The seed used to populate the field and choose the cells.
+    private static final long SEED = 1111;
+
+    private Field field;
+    // The cells queried, and the same cells as locations.
+    private int[] cells;
+    private Location[] locations;
+    // The position of the next cell to query.
+    private int next;
+    // The buffer filled by the cell methods.
+    private Neighbourhood neighbourhood;
+
+    /**
+     * Populate the field and choose the cells to query.
+     */
+    public FieldWorkload()
+    {
+        field = new Simulator(SIZE, SIZE, false, SEED).getField();
+        RandomStream rand = new Randomizer(SEED).reseed(0, 0);
+        cells = new int[SAMPLES];
+        locations = new Location[SAMPLES];
+        for(int i = 0; i < SAMPLES; i++) {
+            cells[i] = field.cellOf(rand.nextInt(SIZE), rand.nextInt(SIZE));
+            locations[i] = field.locationOf(cells[i]);
+        }
+        neighbourhood = new Neighbourhood();
+    }
+
+    /**
+     * The field is not changed by the queries, so there is nothing to do.
+     */
+    public void prepare()
+    {
+    }
+
+    public Supplier<?> operation(String name)
+    {
+        switch(name) {
+            case "adjacentLocations":
+                return () -> field.adjacentLocations(locations[nextSample()]);
+            case "getFreeAdjacentLocations":
+                return () -> field.getFreeAdjacentLocations(locations[nextSample()]);
+            case "getFullAdjacentLocations":
+                return () -> field.getFullAdjacentLocations(locations[nextSample()]);
+            case "adjacentCells":
+                return () -> {
+                    field.adjacentCells(cells[nextSample()], neighbourhood);
+                    return neighbourhood.size();
+                };
+            case "freeAdjacentCells":
+                return () -> {
+                    field.freeAdjacentCells(cells[nextSample()], neighbourhood);
+                    return neighbourhood.size();
+                };
+            case "fullAdjacentCells":
+                return () -> {
+                    field.fullAdjacentCells(cells[nextSample()], neighbourhood);
+                    return neighbourhood.size();
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+    }
+
+    /**
+     * @return The position of the next cell to query.
+     */
+    private int nextSample()
+    {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+}
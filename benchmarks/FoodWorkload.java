@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import bench.Workload;
+
+/**
+ * The search for food of predators packed among herbivores. Every cell
+ * of the field holds an animal: a leopard at the centre of each three
+ * by three block, so that no two leopards share a neighbour, and
+ * herbivores of random species everywhere else. With "herbivores" as
+ * the neighbours every leopard finds food in the first neighbour it
+ * checks. With "predators" all but one of each leopard's neighbours
+ * are cheetahs, which a leopard does not eat, and the last is a
+ * herbivore. The neighbour counts show there is food, so the leopard
+ * checks its neighbours one by one, in random order, passing over
+ * cheetahs until it finds the herbivore.
+ *
+ * The "findFood" operation lets every leopard look for food once.
+ * Eating clears cells, so prepare fills the field again.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class FoodWorkload implements Workload
+{
+    // The size of the field. A multiple of three.
+    private static final int SIZE = 201;
+    // The seed used to fill the field and for every search.
+    private static final long SEED = 1111;
+    // The step the searches are made in.
+    private static final int STEP = 1;
+    // The species the leopards are surrounded by when they are herbivores.
+    private static final Species[] HERBIVORES = {Species.BOAR, Species.IMPALA, Species.RHINO};
+
+    // Whether the leopards are surrounded by herbivores, or by cheetahs
+    // and one herbivore.
+    private boolean herbivores;
+    private Randomizer randomizer;
+    private Parameters parameters;
+    // The leopards of the current field.
+    private List<Animal> predators;
+
+    /**
+     * Create the workload.
+     * @param neighbours What surrounds each leopard: "herbivores" or
+     *                   "predators".
+     */
+    public FoodWorkload(String neighbours)
+    {
+        switch(neighbours) {
+            case "herbivores":
+                herbivores = true;
+                break;
+            case "predators":
+                herbivores = false;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown neighbours: " + neighbours);
+        }
+        randomizer = new Randomizer(SEED);
+        parameters = new Parameters();
+        predators = new ArrayList<>();
+    }
+
+    /**
+     * Fill a new field with animals.
+     */
+    public void prepare()
+    {
+        Field field = new Field(SIZE, SIZE);
+        RandomStream rand = randomizer.reseed(0, 0);
+        predators.clear();
+        for(int row = 0; row < SIZE; row++) {
+            for(int col = 0; col < SIZE; col++) {
+                int cell = field.cellOf(row, col);
+                if(row % 3 == 1 && col % 3 == 1) {
+                    predators.add(new Animal(Species.LEOPARD, true, field, cell, parameters, 0));
+                }
+                else if(herbivores || (row % 3 == 2 && col % 3 == 2)) {
+                    Species species = HERBIVORES[rand.nextInt(HERBIVORES.length)];
+                    new Animal(species, true, field, cell, parameters, 0);
+                }
+                else {
+                    new Animal(Species.CHEETAH, true, field, cell, parameters, 0);
+                }
+            }
+        }
+    }
+
+    public Supplier<?> operation(String name)
+    {
+        if(!name.equals("findFood")) {
+            throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+        return () -> {
+            int found = 0;
+            for(Animal predator : predators) {
+                randomizer.reseed(STEP, predator.getId());
+                if(predator.findFood(STEP) >= 0) {
+                    found++;
+                }
+            }
+            return found;
+        };
+    }
+}
@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import bench.Workload;
+
+/**
+ * The act method of one species. The "act" operation lets every
+ * organism of the species in a freshly populated field act once, at a
+ * time of day when the species is active. For plants, which are not
+ * organism objects, it sweeps the whole GrassLayer once instead.
+ * prepare populates the field again with the same seed, so that every
+ * operation does the same work.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class OrganismWorkload implements Workload
+{
+    // The size of the field.
+    private static final int SIZE = 200;
+    // The seed used to populate the field and for every act.
+    private static final long SEED = 1111;
+    // The step the organisms act in.
+    private static final int STEP = 1;
+
+    // The species that acts.
+    private Species species;
+    private Simulator simulator;
+    private Randomizer randomizer;
+    // The organisms of the species.
+    private List<Organism> actors;
+    // Receives the organisms born while acting.
+    private List<Organism> newOrganisms;
+    // A time of day when the species is active.
+    private TimeOfDay timeOfDay;
+    // What that time of day and the weather mean for each species.
+    private ActivityTable activity;
+    // A buffer for the plants' neighbourhood queries.
+    private Neighbourhood neighbourhood;
+    // Picks the plants that die of drought.
+    private DroughtSampler drought;
+
+    /**
+     * Create the simulation.
+     * @param speciesName The name of the species, such as "Leopard".
+     */
+    public OrganismWorkload(String speciesName)
+    {
+        species = Species.valueOf(speciesName.toUpperCase());
+        simulator = new Simulator(SIZE, SIZE, false, SEED);
+        randomizer = new Randomizer(SEED);
+        actors = new ArrayList<>();
+        newOrganisms = new ArrayList<>();
+        timeOfDay = activeTime(species);
+        activity = new ActivityTable();
+        neighbourhood = new Neighbourhood();
+        drought = new DroughtSampler();
+    }
+
+    /**
+     * Populate the field again and find the organisms that will act.
+     */
+    public void prepare()
+    {
+        simulator.reset();
+        activity.update(timeOfDay, simulator.getWeather(), STEP);
+        actors.clear();
+        newOrganisms.clear();
+        for(Organism organism : simulator.getOrganisms()) {
+            if(organism.getSpecies() == species) {
+                actors.add(organism);
+            }
+        }
+    }
+
+    public Supplier<?> operation(String name)
+    {
+        if(!name.equals("act")) {
+            throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+        if(!species.getDefinition().isAnimal()) {
+            return () -> {
+                GrassLayer grass = simulator.getGrass();
+                drought.start(randomizer, STEP, 0, activity);
+                return grass.step(0, 0, SIZE, SIZE, STEP, activity, neighbourhood, drought);
+            };
+        }
+        return () -> {
+            for(Organism organism : actors) {
+                if(organism.isAlive()) {
+                    randomizer.reseed(STEP, organism.getId());
+                    organism.act(newOrganisms, STEP, activity);
+                }
+            }
+            return newOrganisms;
+        };
+    }
+
+    /**
+     * Return a time of day when the given species is active.
+     * @param species The species.
+     * @return The time of day.
+     */
+    private static TimeOfDay activeTime(Species species)
+    {
+        SpeciesDefinition definition = species.getDefinition();
+        for(TimeOfDay time : TimeOfDay.values()) {
+            if(definition.isActiveAt(time)) {
+                return time;
+            }
+        }
+        throw new IllegalArgumentException(species.getName() + " is never active.");
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.function.Supplier;
+
+import bench.Workload;
+
+/**
+ * Populating and stepping a whole simulation. The density scales every
+ * creation probability, so 1 gives the usual population.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class SimulatorWorkload implements Workload
+{
+    // The seed used for every run.
+    private static final long SEED = 1111;
+
+    private Simulator simulator;
+
+    /**
+     * Create the simulation.
+     * @param size The depth and width of the field.
+     * @param density The factor applied to the creation probabilities.
+     */
+    public SimulatorWorkload(int size, double density)
+    {
+        simulator = new Simulator(size, size, false, SEED);
+        simulator.setDensity(density);
+    }
+
+    /**
+     * Populate the field again, so that the steps that follow do the
+     * same work as last time.
+     */
+    public void prepare()
+    {
+        simulator.reset();
+    }
+
+    public Supplier<?> operation(String name)
+    {
+        switch(name) {
+            case "populate":
+                // Populating is done by reset, which also clears the
+                // organisms and the weather.
+                return () -> {
+                    simulator.reset();
+                    return simulator;
+                };
+            case "simulateOneStep":
+                return () -> {
+                    simulator.simulateOneStep();
+                    return simulator;
+                };
+            default:
+                throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+    }
+}
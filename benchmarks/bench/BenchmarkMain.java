@@ -0,0 +1,35 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the allocation profiler switched on, so
+ * that every result also shows how much memory was allocated per
+ * operation. Any of the usual JMH options may be given, such as a
+ * regular expression selecting the benchmarks to run.
+ *
+ * Usage: java -jar target/benchmarks.jar [JMH options]
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class BenchmarkMain
+{
+    /**
+     * Run the selected benchmarks.
+     * @param args JMH command line options.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException
+    {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
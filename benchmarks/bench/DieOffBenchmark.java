@@ -0,0 +1,73 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the steps in which most of a large population dies, with
+ * each engine (see DieOffWorkload). The time per step should follow
+ * the population, not the number of deaths.
+ *
+ * @author Nikita Lyakhovoy
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class DieOffBenchmark
+{
+    // The number of steps timed in each measurement, which is enough
+    // for most of the population to die.
+    private static final int STEPS = 8;
+
+    @Param({"300", "1000"})
+    private int size;
+
+    @Param({"objects", "arrays"})
+    private String engine;
+
+    private Workload workload;
+    private Supplier<?> simulateOneStep;
+
+    @Setup(Level.Trial)
+    public void setUpTrial()
+    {
+        workload = Workloads.create("DieOffWorkload", size, engine);
+        simulateOneStep = workload.operation("simulateOneStep");
+    }
+
+    /**
+     * Start every iteration from a freshly packed field, so that each
+     * batch of steps sees the same die-off.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration()
+    {
+        workload.prepare();
+    }
+
+    /**
+     * Run the first STEPS steps from a freshly packed field. Each
+     * measurement times all of them.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = STEPS)
+    @Measurement(iterations = 10, batchSize = STEPS)
+    public Object simulateOneStep()
+    {
+        return simulateOneStep.get();
+    }
+}
@@ -0,0 +1,85 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the neighbourhood queries of a populated field (see
+ * FieldWorkload).
+ *
+ * @author Nikita Lyakhovoy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FieldBenchmark
+{
+    private Supplier<?> adjacentLocations;
+    private Supplier<?> getFreeAdjacentLocations;
+    private Supplier<?> getFullAdjacentLocations;
+    private Supplier<?> adjacentCells;
+    private Supplier<?> freeAdjacentCells;
+    private Supplier<?> fullAdjacentCells;
+
+    @Setup
+    public void setUp()
+    {
+        Workload workload = Workloads.create("FieldWorkload");
+        adjacentLocations = workload.operation("adjacentLocations");
+        getFreeAdjacentLocations = workload.operation("getFreeAdjacentLocations");
+        getFullAdjacentLocations = workload.operation("getFullAdjacentLocations");
+        adjacentCells = workload.operation("adjacentCells");
+        freeAdjacentCells = workload.operation("freeAdjacentCells");
+        fullAdjacentCells = workload.operation("fullAdjacentCells");
+    }
+
+    @Benchmark
+    public Object adjacentLocations()
+    {
+        return adjacentLocations.get();
+    }
+
+    @Benchmark
+    public Object getFreeAdjacentLocations()
+    {
+        return getFreeAdjacentLocations.get();
+    }
+
+    @Benchmark
+    public Object getFullAdjacentLocations()
+    {
+        return getFullAdjacentLocations.get();
+    }
+
+    @Benchmark
+    public Object adjacentCells()
+    {
+        return adjacentCells.get();
+    }
+
+    @Benchmark
+    public Object freeAdjacentCells()
+    {
+        return freeAdjacentCells.get();
+    }
+
+    @Benchmark
+    public Object fullAdjacentCells()
+    {
+        return fullAdjacentCells.get();
+    }
+}
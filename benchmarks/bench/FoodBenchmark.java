@@ -0,0 +1,59 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures findFood for predators on a field packed with animals. One
+ * operation lets every predator look for food once (see FoodWorkload).
+ * The field is filled again before each operation, outside the
+ * measured time.
+ *
+ * @author Nikita Lyakhovoy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FoodBenchmark
+{
+    @Param({"herbivores", "predators"})
+    private String neighbours;
+
+    private Workload workload;
+    private Supplier<?> findFood;
+
+    @Setup(Level.Trial)
+    public void setUpTrial()
+    {
+        workload = Workloads.create("FoodWorkload", neighbours);
+        findFood = workload.operation("findFood");
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation()
+    {
+        workload.prepare();
+    }
+
+    @Benchmark
+    public Object findFood()
+    {
+        return findFood.get();
+    }
+}
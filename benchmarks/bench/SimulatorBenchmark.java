@@ -0,0 +1,82 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures populating the field and stepping the simulation, for
+ * several field sizes and population densities (see SimulatorWorkload).
+ *
+ * @author Nikita Lyakhovoy
+ */
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class SimulatorBenchmark
+{
+    // The number of steps timed in each measurement of simulateOneStep.
+    private static final int STEPS = 20;
+
+    @Param({"100", "300", "1000"})
+    private int size;
+
+    @Param({"0.5", "1"})
+    private double density;
+
+    private Workload workload;
+    private Supplier<?> populate;
+    private Supplier<?> simulateOneStep;
+
+    @Setup(Level.Trial)
+    public void setUpTrial()
+    {
+        workload = Workloads.create("SimulatorWorkload", size, density);
+        populate = workload.operation("populate");
+        simulateOneStep = workload.operation("simulateOneStep");
+    }
+
+    /**
+     * Start every iteration from a freshly populated field, so that
+     * each batch of steps does the same work.
+     */
+    @Setup(Level.Iteration)
+    public void setUpIteration()
+    {
+        workload.prepare();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public Object populate()
+    {
+        return populate.get();
+    }
+
+    /**
+     * Run the first STEPS steps from a freshly populated field. Each
+     * measurement times all of them.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3, batchSize = STEPS)
+    @Measurement(iterations = 10, batchSize = STEPS)
+    public Object simulateOneStep()
+    {
+        return simulateOneStep.get();
+    }
+}
@@ -0,0 +1,28 @@
+package bench;
+
+import java.util.function.Supplier;
+
+/**
+ * Something to measure. JMH will not run benchmarks in the default
+ * package, and the simulation lives there, so the benchmarks in this
+ * package reach the simulation through workloads written in the
+ * default package.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public interface Workload
+{
+    /**
+     * Bring the simulation back to the state the operations start from.
+     */
+    void prepare();
+
+    /**
+     * Return one of the operations of this workload. Calling get runs
+     * the operation once and returns its result.
+     * @param name The name of the operation.
+     * @return The operation.
+     * @throws IllegalArgumentException If there is no such operation.
+     */
+    Supplier<?> operation(String name);
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Creates workloads by class name, as the classes in the default
+ * package cannot be named from this one.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class Workloads
+{
+    /**
+     * Create a workload.
+     * @param className The name of a class in the default package that
+     *                  implements Workload.
+     * @param args The arguments of its constructor.
+     * @return The new workload.
+     */
+    public static Workload create(String className, Object... args)
+    {
+        try {
+            for(Constructor<?> constructor : Class.forName(className).getConstructors()) {
+                if(constructor.getParameterCount() == args.length) {
+                    return (Workload) constructor.newInstance(args);
+                }
+            }
+        }
+        catch(InvocationTargetException e) {
+            throw new IllegalStateException("Could not create " + className, e.getCause());
+        }
+        catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create " + className, e);
+        }
+        throw new IllegalArgumentException(className + " has no constructor taking "
+                                           + args.length + " arguments.");
+    }
+}
@@ -0,0 +1,151 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the neighbourhood queries an animal makes when it acts
+ * create no objects: no Location objects, lists or iterators. Also
+ * checks that once nothing is born, a step of either engine allocates
+ * next to nothing on the stepping thread, summary output included.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class AllocationTest
+{
+    // The depth and width of the field.
+    private static final int SIZE = 100;
+    // The seed used to fill the field.
+    private static final long SEED = 42;
+    // The number of steps an animal can go without eating, so that
+    // animals are still alive while allocation is measured.
+    private static final int FOOD_VALUE = 1000;
+    // The steps run before measuring, while the code is compiled and
+    // the buffers grow to size, and the steps measured.
+    private static final int WARM_UP = 40;
+    private static final int MEASURED = 40;
+    // The bytes the measured steps may allocate in total, for what the
+    // JVM itself allocates on the thread.
+    private static final long ALLOWANCE = 512;
+    // Measures what each thread allocates.
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void neighbourhoodQueriesAllocateNothing()
+    {
+        Field field = new Field(SIZE, SIZE);
+        Random rand = new Random(SEED);
+        for(int cell = 0; cell < SIZE * SIZE; cell++) {
+            if(rand.nextBoolean()) {
+                field.place(new Object(), cell);
+            }
+        }
+        Neighbourhood neighbours = new Neighbourhood();
+        // The first pass loads the classes and code the queries use.
+        queryEveryCell(field, neighbours);
+
+        long before = allocatedBytes();
+        queryEveryCell(field, neighbours);
+        long allocated = allocatedBytes() - before;
+        assertEquals(0, allocated, allocated + " bytes allocated by the queries");
+    }
+
+    @Test
+    public void organismsStepWithoutAllocating() throws IOException
+    {
+        checkStepping(false);
+    }
+
+    @Test
+    public void arraysStepWithoutAllocating() throws IOException
+    {
+        checkStepping(true);
+    }
+
+    @TempDir
+    File directory;
+
+    /**
+     * Run a simulation in which nothing is born, exporting a summary of
+     * every step, and measure what its steps allocate once warmed up.
+     * @param useArrays true to use the array engine.
+     * @throws IOException If the summaries cannot be written.
+     */
+    private void checkStepping(boolean useArrays) throws IOException
+    {
+        Parameters parameters = new Parameters();
+        for(Species species : Species.values()) {
+            parameters.setBreedingProbability(species, 0);
+            if(species != Species.PLANT) {
+                parameters.setFoodValue(species, FOOD_VALUE);
+            }
+        }
+        Simulator simulator = new Simulator(SIZE, SIZE, false, SEED, parameters);
+        simulator.setArrayEngine(useArrays);
+        try(StepExporter exporter = new StepExporter(new File(directory, "steps.bin"),
+                                                     StepExporter.Format.BINARY)) {
+            simulator.addStepOutput(exporter);
+            runSteps(simulator, WARM_UP);
+
+            long before = allocatedBytes();
+            runSteps(simulator, MEASURED);
+            long allocated = allocatedBytes() - before;
+            assertTrue(allocated <= ALLOWANCE, allocated + " bytes allocated by the steps");
+        }
+        int animals = 0;
+        for(Species species : Species.values()) {
+            if(species != Species.PLANT) {
+                animals += simulator.getPopulation(species);
+            }
+        }
+        assertTrue(animals > 0, "No animals were left to measure.");
+    }
+
+    /**
+     * Run a number of steps.
+     * @param simulator The simulation.
+     * @param steps The number of steps to run.
+     */
+    private void runSteps(Simulator simulator, int steps)
+    {
+        for(int step = 0; step < steps; step++) {
+            simulator.simulateOneStep();
+        }
+    }
+
+    /**
+     * Make every kind of neighbourhood query for every cell of a field.
+     * @param field The field.
+     * @param neighbours The buffer the queries fill.
+     * @return The number of free cells found, so that the work is used.
+     */
+    private int queryEveryCell(Field field, Neighbourhood neighbours)
+    {
+        int found = 0;
+        for(int cell = 0; cell < SIZE * SIZE; cell++) {
+            field.adjacentCells(cell, neighbours);
+            field.fullAdjacentCells(cell, neighbours);
+            field.freeAdjacentCells(cell, neighbours);
+            found += neighbours.size();
+            if(field.freeAdjacentCell(cell, neighbours) >= 0) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return The number of bytes allocated so far by this thread.
+     */
+    private static long allocatedBytes()
+    {
+        return THREADS.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the neighbour counts the field keeps packed for every cell
+ * against a count of the neighbours themselves, as a simulation runs,
+ * and that plants stay in their layer below the animals.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class FieldTest
+{
+    // The depth and width of the field: not a whole number of chunks,
+    // so that the cells at the edges are checked too.
+    private static final int DEPTH = 90;
+    private static final int WIDTH = 110;
+    // The seed used for every run.
+    private static final long SEED = 7;
+    // The number of steps run.
+    private static final int STEPS = 40;
+    // The number of threads, so that organisms on different tiles
+    // change the counts of the same cells.
+    private static final int THREADS = 2;
+
+    @Test
+    public void organismCountsMatchNeighbours()
+    {
+        checkCounts(false);
+    }
+
+    @Test
+    public void arrayCountsMatchNeighbours()
+    {
+        checkCounts(true);
+    }
+
+    @Test
+    public void plantsStayUnderAnimals()
+    {
+        Field field = new Field(DEPTH, WIDTH);
+        int cell = field.cellOf(1, 1);
+        field.placePlant(cell, (byte) 0);
+        field.place(new Object(), cell);
+        assertEquals(Species.UNKNOWN, field.getSpeciesAt(cell));
+        assertEquals(1, field.getCount(Species.PLANT));
+
+        // The plant shows again once the cell is cleared.
+        field.clear(cell);
+        assertEquals(Species.PLANT.getCode(), field.getSpeciesAt(cell));
+        assertEquals(1, field.countAdjacent(field.cellOf(0, 0), 1 << Species.PLANT.getCode()));
+
+        field.removePlant(cell);
+        assertEquals(Species.EMPTY, field.getSpeciesAt(cell));
+        assertEquals(0, field.getCount(Species.PLANT));
+    }
+
+    /**
+     * Run a simulation and check the counts of every cell after each step.
+     * @param useArrays true to use the array engine.
+     */
+    private void checkCounts(boolean useArrays)
+    {
+        Simulator simulator = new Simulator(DEPTH, WIDTH, false, SEED);
+        simulator.setArrayEngine(useArrays);
+        simulator.setThreadCount(THREADS);
+        for(int step = 0; step <= STEPS; step++) {
+            if(step > 0) {
+                simulator.simulateOneStep();
+            }
+            Field field = simulator.getField();
+            for(int row = 0; row < DEPTH; row++) {
+                for(int col = 0; col < WIDTH; col++) {
+                    checkCell(field, row, col, useArrays, "Step " + step + ", cell " + row + "," + col);
+                }
+            }
+        }
+        // Stop the worker threads.
+        simulator.setThreadCount(1);
+    }
+
+    /**
+     * Count the neighbours of a cell one by one, and compare them with
+     * the counts the field keeps.
+     * @param field The field.
+     * @param row The row of the cell.
+     * @param col The column of the cell.
+     * @param useArrays true if the array engine is used. Its animals are
+     *                  not objects, so their genders are not checked.
+     * @param message Identifies the cell if the counts differ.
+     */
+    private void checkCell(Field field, int row, int col, boolean useArrays, String message)
+    {
+        Species[] species = Species.values();
+        // The neighbours of each species code, by gender.
+        int[] males = new int[species.length + 1];
+        int[] females = new int[species.length + 1];
+        int neighbours = 0;
+        int blocking = 0;
+        for(int nextRow = row - 1; nextRow <= row + 1; nextRow++) {
+            for(int nextCol = col - 1; nextCol <= col + 1; nextCol++) {
+                if(nextRow < 0 || nextRow >= DEPTH || nextCol < 0 || nextCol >= WIDTH
+                        || (nextRow == row && nextCol == col)) {
+                    continue;
+                }
+                int next = field.cellOf(nextRow, nextCol);
+                neighbours++;
+                if(!field.isFreeAt(next)) {
+                    blocking++;
+                }
+                byte code = field.getSpeciesAt(next);
+                if(code != Species.EMPTY) {
+                    Object occupant = field.getObjectAt(next);
+                    if(occupant instanceof Animal && ((Animal) occupant).getGender()) {
+                        females[code]++;
+                    }
+                    else {
+                        males[code]++;
+                    }
+                }
+            }
+        }
+
+        int cell = field.cellOf(row, col);
+        assertEquals(blocking < neighbours, field.hasFreeAdjacentCell(cell), message);
+        for(int i = 0; i < species.length; i++) {
+            byte code = species[i].getCode();
+            assertEquals(males[code] + females[code], field.countAdjacent(cell, 1 << code),
+                         message + ", " + species[i]);
+            if(!useArrays) {
+                assertEquals(males[code], field.countAdjacent(cell, code, false),
+                             message + ", male " + species[i]);
+                assertEquals(females[code], field.countAdjacent(cell, code, true),
+                             message + ", female " + species[i]);
+            }
+        }
+    }
+}
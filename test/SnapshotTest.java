@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a simulation saved to a snapshot and loaded again carries
+ * on exactly as if it had never stopped.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class SnapshotTest
+{
+    // The depth and width of the field.
+    private static final int SIZE = 120;
+    // The seed used for every run.
+    private static final long SEED = 1111;
+    // The steps run before saving, and after loading.
+    private static final int STEPS = 25;
+
+    @TempDir
+    File directory;
+
+    @Test
+    public void organismsContinueAfterLoading() throws IOException
+    {
+        checkRoundTrip(false);
+    }
+
+    @Test
+    public void arraysContinueAfterLoading() throws IOException
+    {
+        checkRoundTrip(true);
+    }
+
+    /**
+     * Run one simulation straight through, and another that is saved
+     * and loaded halfway, and compare where they end up.
+     * @param useArrays true to use the array engine.
+     * @throws IOException If the snapshot cannot be written or read.
+     */
+    private void checkRoundTrip(boolean useArrays) throws IOException
+    {
+        Simulator straight = new Simulator(SIZE, SIZE, false, SEED);
+        straight.setArrayEngine(useArrays);
+        straight.simulate(2 * STEPS);
+
+        Simulator saved = new Simulator(SIZE, SIZE, false, SEED);
+        saved.setArrayEngine(useArrays);
+        saved.simulate(STEPS);
+        File file = new File(directory, "simulation.snapshot");
+        saved.save(file);
+        Simulator loaded = Simulator.load(file, false);
+        assertEquals(saved.getStep(), loaded.getStep());
+        loaded.simulate(STEPS);
+
+        assertEquals(straight.getStep(), loaded.getStep());
+        Field expected = straight.getField();
+        Field actual = loaded.getField();
+        for(Species species : Species.values()) {
+            assertEquals(expected.getCount(species), actual.getCount(species), species.toString());
+        }
+        for(int row = 0; row < SIZE; row++) {
+            for(int col = 0; col < SIZE; col++) {
+                assertEquals(expected.getSpeciesAt(row, col), actual.getSpeciesAt(row, col),
+                             "Cell " + row + "," + col);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a simulation gives the same results whatever the number
+ * of threads it is stepped on.
+ *
+ * @author Nikita Lyakhovoy
+ */
+public class TiledStepperTest
+{
+    // The depth and width of the field: several tiles of each colour.
+    private static final int DEPTH = 150;
+    private static final int WIDTH = 200;
+    // The seed used for every run.
+    private static final long SEED = 7;
+    // The number of steps run.
+    private static final int STEPS = 100;
+
+    @Test
+    public void resultsDoNotDependOnThreadCount()
+    {
+        List<int[]> single = new ArrayList<>();
+        Simulator one = run(1, single);
+        List<int[]> parallel = new ArrayList<>();
+        Simulator four = run(4, parallel);
+
+        assertEquals(single.size(), parallel.size());
+        for(int step = 0; step < single.size(); step++) {
+            assertArrayEquals(single.get(step), parallel.get(step), "Step " + (step + 1));
+        }
+        Field expected = one.getField();
+        Field actual = four.getField();
+        for(int row = 0; row < DEPTH; row++) {
+            for(int col = 0; col < WIDTH; col++) {
+                assertEquals(expected.getSpeciesAt(row, col), actual.getSpeciesAt(row, col),
+                             "Cell " + row + "," + col);
+            }
+        }
+    }
+
+    /**
+     * Run a simulation, recording the populations, births and deaths
+     * of every step.
+     * @param threads The number of threads to step it on.
+     * @param summaries Receives the record of each step.
+     * @return The simulation, after the last step.
+     */
+    private Simulator run(int threads, List<int[]> summaries)
+    {
+        Simulator simulator = new Simulator(DEPTH, WIDTH, false, SEED);
+        simulator.setThreadCount(threads);
+        simulator.addStepOutput(summary -> {
+            Species[] species = Species.values();
+            int[] record = new int[3 * species.length];
+            for(int i = 0; i < species.length; i++) {
+                record[3 * i] = summary.getPopulation(species[i]);
+                record[3 * i + 1] = summary.getBirths(species[i]);
+                record[3 * i + 2] = summary.getDeaths(species[i]);
+            }
+            summaries.add(record);
+        });
+        for(int step = 0; step < STEPS; step++) {
+            simulator.simulateOneStep();
+        }
+        // Stop the worker threads.
+        simulator.setThreadCount(1);
+        return simulator;
+    }
+}